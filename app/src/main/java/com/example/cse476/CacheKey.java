@@ -0,0 +1,88 @@
+package com.example.cse476;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typed key for ResponseCache. The resource type decides how long a cached
+ * response counts as fresh.
+ */
+public final class CacheKey {
+
+    public enum Resource {
+        CLUB(TimeUnit.HOURS.toMillis(1)),
+        PROFILE(TimeUnit.MINUTES.toMillis(5)),
+        TAGS(TimeUnit.HOURS.toMillis(24));
+
+        public final long ttlMillis;
+
+        Resource(long ttlMillis) {
+            this.ttlMillis = ttlMillis;
+        }
+    }
+
+    public final Resource resource;
+    public final String id;
+
+    private CacheKey(Resource resource, String id) {
+        this.resource = resource;
+        this.id = id;
+    }
+
+    public static CacheKey club(String clubId) {
+        return new CacheKey(Resource.CLUB, clubId);
+    }
+
+    public static CacheKey profile(String userId) {
+        return new CacheKey(Resource.PROFILE, userId);
+    }
+
+    /**
+     * Key for a list of tags, the order of the list doesn't matter
+     */
+    public static CacheKey tags(List<String> tagIds) {
+        List<String> sorted = new ArrayList<>(tagIds);
+        Collections.sort(sorted);
+        return new CacheKey(Resource.TAGS, String.join(",", sorted));
+    }
+
+    /**
+     * @return a file name safe version of the key for the disk tier
+     */
+    String diskName() {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(id.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(resource.name().toLowerCase()).append('-');
+            for (byte b : digest) {
+                name.append(String.format("%02x", b));
+            }
+            return name.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof CacheKey)) {
+            return false;
+        }
+        CacheKey other = (CacheKey) o;
+        return resource == other.resource && id.equals(other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return resource.hashCode() * 31 + id.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return resource.name().toLowerCase() + ":" + id;
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.cse476;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read only view of a catalog snapshot written by CatalogSnapshotWriter.
+ * The file is memory mapped and every lookup reads straight from the mapping,
+ * so opening a snapshot costs a header read no matter how many clubs it has.
+ * Strings are only decoded when a caller asks for them.
+ */
+public class CatalogSnapshot {
+    // Club columns, in the order they are stored
+    public static final int FIELD_ID = 0;
+    public static final int FIELD_SLUG = 1;
+    public static final int FIELD_NAME = 2;
+    public static final int FIELD_DESCRIPTION = 3;
+    public static final int FIELD_SOCIALS = 4;
+    public static final int FIELD_WEBSITE = 5;
+    public static final int FIELD_ADDRESS = 6;
+    public static final int FIELD_EMAIL = 7;
+    public static final int FIELD_PHONE = 8;
+    static final int FIELD_COUNT = 9;
+
+    // Object names in the snapshots bucket, published by backend/snapshot
+    public static final String SNAPSHOT_NAME = "catalog.bin";
+    // A few bytes holding the published version, checked before downloading anything
+    public static final String MANIFEST_NAME = "catalog.version";
+
+    private final ByteBuffer buffer;
+    private final long version;
+    private final int stringCount;
+    private final int tagCount;
+    private final int clubCount;
+    private final int bitmapBytes;
+    private final int stringOffsetsStart;
+    private final int clubOffsetsStart;
+    private final int tagsStart;
+
+    private CatalogSnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < CatalogSnapshotWriter.HEADER_SIZE
+                || buffer.getInt(0) != CatalogSnapshotWriter.MAGIC) {
+            throw new IOException("not a catalog snapshot");
+        }
+        if (buffer.getShort(4) != CatalogSnapshotWriter.FORMAT_VERSION) {
+            throw new IOException("unsupported snapshot format " + buffer.getShort(4));
+        }
+        version = buffer.getLong(8);
+        stringCount = buffer.getInt(16);
+        tagCount = buffer.getInt(20);
+        clubCount = buffer.getInt(24);
+        bitmapBytes = buffer.getInt(28);
+        stringOffsetsStart = CatalogSnapshotWriter.HEADER_SIZE;
+        clubOffsetsStart = stringOffsetsStart + 4 * (stringCount + 1);
+        tagsStart = clubOffsetsStart + 4 * clubCount;
+    }
+
+    /**
+     * Memory map a snapshot file
+     * @param file - snapshot written by CatalogSnapshotWriter
+     */
+    public static CatalogSnapshot open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            // The mapping stays valid after the channel is closed
+            return new CatalogSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Read a snapshot that is already in memory, e.g. a fresh download
+     */
+    public static CatalogSnapshot wrap(byte[] data) throws IOException {
+        return new CatalogSnapshot(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * @param fromVersion - version the diff applies to
+     * @return bucket object name of the diff to the next version
+     */
+    public static String diffName(long fromVersion) {
+        return "catalog-" + fromVersion + ".diff";
+    }
+
+    /**
+     * @param manifest - contents of MANIFEST_NAME
+     * @return the published snapshot version
+     */
+    public static long parseManifest(byte[] manifest) throws IOException {
+        try {
+            return Long.parseLong(new String(manifest, StandardCharsets.UTF_8).trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("bad catalog manifest", e);
+        }
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public int clubCount() {
+        return clubCount;
+    }
+
+    public int tagCount() {
+        return tagCount;
+    }
+
+    /**
+     * Read one column of a club
+     * @param club - club index, 0 until clubCount()
+     * @param field - one of the FIELD_* constants
+     * @return the value or null if the column is empty
+     */
+    public String clubField(int club, int field) {
+        ByteBuffer in = clubRecord(club);
+        for (int f = 0; f < field; f++) {
+            CatalogSnapshotWriter.readVarint(in);
+        }
+        return string(CatalogSnapshotWriter.readVarint(in));
+    }
+
+    public String clubName(int club) {
+        return clubField(club, FIELD_NAME);
+    }
+
+    public String clubSlug(int club) {
+        return clubField(club, FIELD_SLUG);
+    }
+
+    /**
+     * Check tag membership using the club's bitmap
+     * @param club - club index
+     * @param tag - tag index, 0 until tagCount()
+     */
+    public boolean clubHasTag(int club, int tag) {
+        checkTag(tag);
+        ByteBuffer in = clubRecord(club);
+        for (int f = 0; f < FIELD_COUNT; f++) {
+            CatalogSnapshotWriter.readVarint(in);
+        }
+        return (in.get(in.position() + (tag >> 3)) & (1 << (tag & 7))) != 0;
+    }
+
+    /**
+     * @return the indexes of all clubs that have the tag
+     */
+    public int[] clubsWithTag(int tag) {
+        checkTag(tag);
+        int[] matches = new int[clubCount];
+        int count = 0;
+        for (int c = 0; c < clubCount; c++) {
+            if (clubHasTag(c, tag)) {
+                matches[count++] = c;
+            }
+        }
+        int[] result = new int[count];
+        System.arraycopy(matches, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     * Find a club by slug without decoding any strings
+     * @return the club index or -1
+     */
+    public int findClubBySlug(String slug) {
+        byte[] target = slug.getBytes(StandardCharsets.UTF_8);
+        for (int c = 0; c < clubCount; c++) {
+            ByteBuffer in = clubRecord(c);
+            CatalogSnapshotWriter.readVarint(in);
+            if (stringEquals(CatalogSnapshotWriter.readVarint(in), target)) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    public String tagId(int tag) {
+        return tagField(tag, 0);
+    }
+
+    public String tagName(int tag) {
+        return tagField(tag, 1);
+    }
+
+    public String tagSlug(int tag) {
+        return tagField(tag, 2);
+    }
+
+    /**
+     * Find a tag by slug
+     * @return the tag index or -1
+     */
+    public int findTagBySlug(String slug) {
+        byte[] target = slug.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer in = at(tagsStart);
+        for (int t = 0; t < tagCount; t++) {
+            CatalogSnapshotWriter.readVarint(in);
+            CatalogSnapshotWriter.readVarint(in);
+            if (stringEquals(CatalogSnapshotWriter.readVarint(in), target)) {
+                return t;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decode every tag into rows, used when applying a diff
+     */
+    public List<CatalogSnapshotWriter.TagRow> tagRows() {
+        List<CatalogSnapshotWriter.TagRow> rows = new ArrayList<>(tagCount);
+        for (int t = 0; t < tagCount; t++) {
+            rows.add(new CatalogSnapshotWriter.TagRow(tagId(t), tagName(t), tagSlug(t)));
+        }
+        return rows;
+    }
+
+    /**
+     * Decode every club into rows, used when applying a diff
+     */
+    public List<CatalogSnapshotWriter.ClubRow> clubRows() {
+        List<CatalogSnapshotWriter.ClubRow> rows = new ArrayList<>(clubCount);
+        for (int c = 0; c < clubCount; c++) {
+            ByteBuffer in = clubRecord(c);
+            String[] fields = new String[FIELD_COUNT];
+            for (int f = 0; f < FIELD_COUNT; f++) {
+                fields[f] = string(CatalogSnapshotWriter.readVarint(in));
+            }
+            CatalogSnapshotWriter.ClubRow row = new CatalogSnapshotWriter.ClubRow(
+                    fields[FIELD_ID], fields[FIELD_SLUG], fields[FIELD_NAME]);
+            row.description = fields[FIELD_DESCRIPTION];
+            row.socials = fields[FIELD_SOCIALS];
+            row.website = fields[FIELD_WEBSITE];
+            row.address = fields[FIELD_ADDRESS];
+            row.email = fields[FIELD_EMAIL];
+            row.phone = fields[FIELD_PHONE];
+            for (int t = 0; t < tagCount; t++) {
+                if ((in.get(in.position() + (t >> 3)) & (1 << (t & 7))) != 0) {
+                    row.tagIds.add(tagId(t));
+                }
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private String tagField(int tag, int field) {
+        checkTag(tag);
+        ByteBuffer in = at(tagsStart);
+        // Tags are few, so a linear skip is cheaper than storing an offset table
+        for (int skip = 0; skip < tag * 3 + field; skip++) {
+            CatalogSnapshotWriter.readVarint(in);
+        }
+        return string(CatalogSnapshotWriter.readVarint(in));
+    }
+
+    // An index past the end would read another record's bytes instead of failing
+    private void checkTag(int tag) {
+        if (tag < 0 || tag >= tagCount) {
+            throw new IndexOutOfBoundsException("tag " + tag);
+        }
+    }
+
+    private ByteBuffer clubRecord(int club) {
+        if (club < 0 || club >= clubCount) {
+            throw new IndexOutOfBoundsException("club " + club);
+        }
+        return at(buffer.getInt(clubOffsetsStart + 4 * club));
+    }
+
+    private String string(int ref) {
+        if (ref == 0) {
+            return null;
+        }
+        int start = buffer.getInt(stringOffsetsStart + 4 * (ref - 1));
+        int end = buffer.getInt(stringOffsetsStart + 4 * ref);
+        byte[] utf8 = new byte[end - start];
+        at(start).get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private boolean stringEquals(int ref, byte[] target) {
+        if (ref == 0) {
+            return false;
+        }
+        int start = buffer.getInt(stringOffsetsStart + 4 * (ref - 1));
+        int end = buffer.getInt(stringOffsetsStart + 4 * ref);
+        if (end - start != target.length) {
+            return false;
+        }
+        for (int i = 0; i < target.length; i++) {
+            if (buffer.get(start + i) != target[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // A cursor over the shared buffer, so lookups never move each other's position
+    private ByteBuffer at(int position) {
+        ByteBuffer in = buffer.duplicate();
+        in.position(position);
+        return in;
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.cse476;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Changes between two catalog snapshot versions, so a phone that already has
+ * version N only downloads what changed instead of the whole catalog.
+ *
+ * Layout (big endian):
+ *   header  magic, format version, from version, to version, op count
+ *   ops     one op byte followed by its strings, strings are a varint
+ *           (length + 1, 0 means null) followed by UTF-8 bytes
+ */
+public class CatalogSnapshotDiff {
+    public static final int MAGIC = 0x4D535544; // "MSUD"
+    public static final short FORMAT_VERSION = 1;
+
+    private static final byte OP_PUT_TAG = 1;
+    private static final byte OP_DELETE_TAG = 2;
+    private static final byte OP_PUT_CLUB = 3;
+    private static final byte OP_DELETE_CLUB = 4;
+
+    private CatalogSnapshotDiff() {
+    }
+
+    /**
+     * Build the diff from an old snapshot to the current catalog
+     * @param old - the previously published snapshot
+     * @param newVersion - version of the new snapshot
+     * @param tags - all tags in the new catalog
+     * @param clubs - all clubs in the new catalog
+     * @return the encoded diff
+     */
+    public static byte[] compute(CatalogSnapshot old, long newVersion,
+                                 List<CatalogSnapshotWriter.TagRow> tags,
+                                 List<CatalogSnapshotWriter.ClubRow> clubs) {
+        Map<String, CatalogSnapshotWriter.TagRow> oldTags = new LinkedHashMap<>();
+        for (CatalogSnapshotWriter.TagRow tag : old.tagRows()) {
+            oldTags.put(tag.id, tag);
+        }
+        Map<String, CatalogSnapshotWriter.ClubRow> oldClubs = new LinkedHashMap<>();
+        for (CatalogSnapshotWriter.ClubRow club : old.clubRows()) {
+            oldClubs.put(club.id, club);
+        }
+
+        ByteArrayOutputStream ops = new ByteArrayOutputStream();
+        int count = 0;
+
+        // Tags first, so club tag ids always point at a known tag
+        for (CatalogSnapshotWriter.TagRow tag : tags) {
+            CatalogSnapshotWriter.TagRow before = oldTags.remove(tag.id);
+            if (before == null || !sameTag(before, tag)) {
+                ops.write(OP_PUT_TAG);
+                writeString(ops, tag.id);
+                writeString(ops, tag.name);
+                writeString(ops, tag.slug);
+                count++;
+            }
+        }
+        for (CatalogSnapshotWriter.ClubRow club : clubs) {
+            CatalogSnapshotWriter.ClubRow before = oldClubs.remove(club.id);
+            if (before == null || !sameClub(before, club)) {
+                ops.write(OP_PUT_CLUB);
+                for (String field : club.fields()) {
+                    writeString(ops, field);
+                }
+                CatalogSnapshotWriter.writeVarint(ops, club.tagIds.size());
+                for (String tagId : club.tagIds) {
+                    writeString(ops, tagId);
+                }
+                count++;
+            }
+        }
+        // Whatever is left in the old maps was deleted
+        for (String clubId : oldClubs.keySet()) {
+            ops.write(OP_DELETE_CLUB);
+            writeString(ops, clubId);
+            count++;
+        }
+        for (String tagId : oldTags.keySet()) {
+            ops.write(OP_DELETE_TAG);
+            writeString(ops, tagId);
+            count++;
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(28 + ops.size());
+        out.putInt(MAGIC);
+        out.putShort(FORMAT_VERSION);
+        out.putShort((short) 0);
+        out.putLong(old.version());
+        out.putLong(newVersion);
+        out.putInt(count);
+        out.put(ops.toByteArray());
+        return out.array();
+    }
+
+    /**
+     * Apply a diff to a snapshot
+     * @param old - the snapshot on the phone
+     * @param diff - a diff computed from old's version
+     * @return the new snapshot, ready to be written to disk
+     * @throws IOException if the diff is broken or made for another version
+     */
+    public static byte[] apply(CatalogSnapshot old, byte[] diff) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(diff);
+        if (diff.length < 28 || in.getInt() != MAGIC) {
+            throw new IOException("not a catalog diff");
+        }
+        if (in.getShort() != FORMAT_VERSION) {
+            throw new IOException("unsupported diff format");
+        }
+        in.getShort();
+        long fromVersion = in.getLong();
+        long toVersion = in.getLong();
+        if (fromVersion != old.version()) {
+            throw new IOException("diff is for version " + fromVersion + ", have " + old.version());
+        }
+        int count = in.getInt();
+
+        Map<String, CatalogSnapshotWriter.TagRow> tags = new LinkedHashMap<>();
+        for (CatalogSnapshotWriter.TagRow tag : old.tagRows()) {
+            tags.put(tag.id, tag);
+        }
+        Map<String, CatalogSnapshotWriter.ClubRow> clubs = new LinkedHashMap<>();
+        for (CatalogSnapshotWriter.ClubRow club : old.clubRows()) {
+            clubs.put(club.id, club);
+        }
+
+        try {
+            for (int i = 0; i < count; i++) {
+                byte op = in.get();
+                if (op == OP_PUT_TAG) {
+                    CatalogSnapshotWriter.TagRow tag = new CatalogSnapshotWriter.TagRow(
+                            readString(in), readString(in), readString(in));
+                    tags.put(tag.id, tag);
+                } else if (op == OP_DELETE_TAG) {
+                    tags.remove(readString(in));
+                } else if (op == OP_PUT_CLUB) {
+                    CatalogSnapshotWriter.ClubRow club = new CatalogSnapshotWriter.ClubRow(
+                            readString(in), readString(in), readString(in));
+                    club.description = readString(in);
+                    club.socials = readString(in);
+                    club.website = readString(in);
+                    club.address = readString(in);
+                    club.email = readString(in);
+                    club.phone = readString(in);
+                    int tagCount = CatalogSnapshotWriter.readVarint(in);
+                    for (int t = 0; t < tagCount; t++) {
+                        club.tagIds.add(readString(in));
+                    }
+                    clubs.put(club.id, club);
+                } else if (op == OP_DELETE_CLUB) {
+                    clubs.remove(readString(in));
+                } else {
+                    throw new IOException("unknown diff op " + op);
+                }
+            }
+        } catch (RuntimeException e) {
+            // BufferUnderflowException and friends mean a truncated download
+            throw new IOException("corrupt catalog diff", e);
+        }
+
+        // toBytes sorts the rows, so the result matches the exporter's snapshot byte for byte
+        return CatalogSnapshotWriter.toBytes(toVersion,
+                new ArrayList<>(tags.values()), new ArrayList<>(clubs.values()));
+    }
+
+    private static boolean sameTag(CatalogSnapshotWriter.TagRow a, CatalogSnapshotWriter.TagRow b) {
+        return Objects.equals(a.name, b.name) && Objects.equals(a.slug, b.slug);
+    }
+
+    private static boolean sameClub(CatalogSnapshotWriter.ClubRow a, CatalogSnapshotWriter.ClubRow b) {
+        String[] fa = a.fields();
+        String[] fb = b.fields();
+        for (int i = 0; i < fa.length; i++) {
+            if (!Objects.equals(fa[i], fb[i])) {
+                return false;
+            }
+        }
+        return new HashSet<>(a.tagIds).equals(new HashSet<>(b.tagIds));
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            CatalogSnapshotWriter.writeVarint(out, 0);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        CatalogSnapshotWriter.writeVarint(out, utf8.length + 1);
+        out.write(utf8, 0, utf8.length);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = CatalogSnapshotWriter.readVarint(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length - 1];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.cse476;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the club catalog (clubs + tags + club_tags) in the binary snapshot
+ * format read by CatalogSnapshot. Plain Java with no Android imports so the
+ * backend export job can compile it as well.
+ *
+ * Layout (big endian):
+ *   header         magic, format version, snapshot version, section counts
+ *   string offsets int[stringCount + 1], absolute file offsets
+ *   club offsets   int[clubCount], absolute file offsets
+ *   tags           3 varint string refs per tag (id, name, slug)
+ *   string data    UTF-8 bytes of every distinct string
+ *   clubs          9 varint string refs per club, then the tag bitmap
+ *
+ * A string ref is the string index + 1, 0 means null.
+ *
+ * Tags and clubs are always written sorted by name (then id), so the same
+ * catalog gives the same bytes whether the exporter or a phone applying a
+ * diff wrote it, and the list shows in alphabetical order.
+ */
+public class CatalogSnapshotWriter {
+    public static final int MAGIC = 0x4D535543; // "MSUC"
+    public static final short FORMAT_VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+
+    /** One row of the tags table */
+    public static class TagRow {
+        public String id;
+        public String name;
+        public String slug;
+
+        public TagRow(String id, String name, String slug) {
+            this.id = id;
+            this.name = name;
+            this.slug = slug;
+        }
+    }
+
+    /** One row of the clubs table with the tag ids from club_tags */
+    public static class ClubRow {
+        public String id;
+        public String slug;
+        public String name;
+        public String description;
+        public String socials;
+        public String website;
+        public String address;
+        public String email;
+        public String phone;
+        public List<String> tagIds = new ArrayList<>();
+
+        public ClubRow(String id, String slug, String name) {
+            this.id = id;
+            this.slug = slug;
+            this.name = name;
+        }
+
+        // Columns in the order they are stored, see CatalogSnapshot.FIELD_*
+        String[] fields() {
+            return new String[]{id, slug, name, description, socials, website, address, email, phone};
+        }
+    }
+
+    // Case insensitive like the list a person reads, the id breaks ties
+    static final Comparator<TagRow> TAG_ORDER = Comparator
+            .comparing((TagRow tag) -> tag.name, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+            .thenComparing(tag -> tag.id, Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+    static final Comparator<ClubRow> CLUB_ORDER = Comparator
+            .comparing((ClubRow club) -> club.name, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+            .thenComparing(club -> club.id, Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+
+    private CatalogSnapshotWriter() {
+    }
+
+    /**
+     * Encode a catalog into a snapshot
+     * @param version - snapshot version, should go up with every export
+     * @param tags - all tags, in any order. Sorted by TAG_ORDER, which then
+     *             defines the bit positions in the club bitmaps
+     * @param clubs - all clubs, in any order. Sorted by CLUB_ORDER
+     * @return the encoded snapshot
+     */
+    public static byte[] toBytes(long version, List<TagRow> tags, List<ClubRow> clubs) {
+        tags = new ArrayList<>(tags);
+        tags.sort(TAG_ORDER);
+        clubs = new ArrayList<>(clubs);
+        clubs.sort(CLUB_ORDER);
+
+        // Deduplicate every string so repeated values are only stored once
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        Map<String, Integer> tagIndex = new HashMap<>();
+
+        ByteArrayOutputStream tagSection = new ByteArrayOutputStream();
+        for (int t = 0; t < tags.size(); t++) {
+            TagRow tag = tags.get(t);
+            tagIndex.put(tag.id, t);
+            writeVarint(tagSection, ref(strings, tag.id));
+            writeVarint(tagSection, ref(strings, tag.name));
+            writeVarint(tagSection, ref(strings, tag.slug));
+        }
+
+        int bitmapBytes = (tags.size() + 7) / 8;
+        ByteArrayOutputStream clubSection = new ByteArrayOutputStream();
+        int[] clubOffsets = new int[clubs.size()];
+        for (int c = 0; c < clubs.size(); c++) {
+            ClubRow club = clubs.get(c);
+            clubOffsets[c] = clubSection.size();
+            for (String field : club.fields()) {
+                writeVarint(clubSection, ref(strings, field));
+            }
+            byte[] bitmap = new byte[bitmapBytes];
+            for (String tagId : club.tagIds) {
+                Integer t = tagIndex.get(tagId);
+                if (t != null) {
+                    bitmap[t >> 3] |= (byte) (1 << (t & 7));
+                }
+            }
+            clubSection.write(bitmap, 0, bitmap.length);
+        }
+
+        ByteArrayOutputStream stringSection = new ByteArrayOutputStream();
+        int[] stringOffsets = new int[strings.size() + 1];
+        int s = 0;
+        for (String value : strings.keySet()) {
+            stringOffsets[s++] = stringSection.size();
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            stringSection.write(utf8, 0, utf8.length);
+        }
+        stringOffsets[s] = stringSection.size();
+
+        int tagsStart = HEADER_SIZE + 4 * stringOffsets.length + 4 * clubOffsets.length;
+        int stringsStart = tagsStart + tagSection.size();
+        int clubsStart = stringsStart + stringSection.size();
+
+        ByteBuffer out = ByteBuffer.allocate(clubsStart + clubSection.size());
+        out.putInt(MAGIC);
+        out.putShort(FORMAT_VERSION);
+        out.putShort((short) 0);
+        out.putLong(version);
+        out.putInt(strings.size());
+        out.putInt(tags.size());
+        out.putInt(clubs.size());
+        out.putInt(bitmapBytes);
+        for (int offset : stringOffsets) {
+            out.putInt(stringsStart + offset);
+        }
+        for (int offset : clubOffsets) {
+            out.putInt(clubsStart + offset);
+        }
+        out.put(tagSection.toByteArray());
+        out.put(stringSection.toByteArray());
+        out.put(clubSection.toByteArray());
+        return out.array();
+    }
+
+    /**
+     * Encode a catalog and write it to a stream
+     */
+    public static void write(long version, List<TagRow> tags, List<ClubRow> clubs, OutputStream out) throws IOException {
+        out.write(toBytes(version, tags, clubs));
+    }
+
+    private static int ref(Map<String, Integer> strings, String value) {
+        if (value == null) {
+            return 0;
+        }
+        Integer index = strings.get(value);
+        if (index == null) {
+            index = strings.size();
+            strings.put(value, index);
+        }
+        return index + 1;
+    }
+
+    // Unsigned LEB128, small ids take a single byte
+    static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    static int readVarint(ByteBuffer in) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.cse476;
 
 import android.os.Bundle;
+import android.view.View;
+import android.view.ViewStub;
 import android.widget.Button;
 import android.widget.CheckBox;
 import android.widget.TextView;
@@ -9,12 +11,25 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.SwitchCompat;
 import android.content.pm.PackageManager;
 
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.Set;
+
+import okhttp3.Response;
+
 // THIRD ACTIVITY - shows detailed club information
+// The summary (name, location) is painted in onCreate from data the catalog
+// already had; description, socials and the map preview are inflated after
+// the first frame so they don't delay it.
 public class ClubDetailsActivity extends AppCompatActivity {
 
     // Only keep fields that are used across multiple methods
     private LocationHelper locationHelper;
     private String clubLocation;
+    private String clubId;
+    private View detailsSection;
 
     // onCreate is called when the activity is first created
     @Override
@@ -24,13 +39,13 @@ public class ClubDetailsActivity extends AppCompatActivity {
         // connects Java code to the XML layout file
         setContentView(R.layout.activity_club_details);
 
-        // Initialize LocationHelper
-        locationHelper = new LocationHelper(this);
+        // Only clubs loaded from Supabase have an id, the sample club does not
+        clubId = getIntent().getStringExtra("CLUB_ID");
 
         // Get club location from intent or use default
         clubLocation = getIntent().getStringExtra("CLUB_LOCATION");
-        if (clubLocation == null) {
-            // Fallback to the location from string resources if no intent extra
+        if (clubLocation == null && clubId == null) {
+            // Fallback to the location from string resources for the sample club
             clubLocation = getString(R.string.location);
         }
 
@@ -42,18 +57,61 @@ public class ClubDetailsActivity extends AppCompatActivity {
         TextView meetingTimeTextView = findViewById(R.id.meetingTimeTextView);
         TextView locationTextView = findViewById(R.id.locationTextView);
 
+        // Paint the summary right away from what the catalog screen already had
+        String clubName = getIntent().getStringExtra("CLUB_NAME");
+        ClubRepository catalog = SessionStore.get().getCatalog();
+        ClubRepository.Club summary = clubId != null && catalog != null ? catalog.findById(clubId) : null;
+        if (clubName == null && summary != null) {
+            clubName = summary.name();
+        }
+        if (clubLocation == null && summary != null) {
+            clubLocation = summary.address();
+        }
+
         // Set actual MSU club data using string resources so theres no hard coded strings
-        clubNameTextView.setText(R.string.wic_club_name);
+        if (clubName != null) {
+            clubNameTextView.setText(clubName);
+        } else {
+            clubNameTextView.setText(R.string.wic_club_name);
+        }
         meetingTimeTextView.setText(R.string.meeting_time);
-        locationTextView.setText(R.string.location_display);
+        if (clubId == null) {
+            locationTextView.setText(R.string.location_display);
+        } else if (clubLocation != null) {
+            locationTextView.setText(getString(R.string.location_format, clubLocation));
+        } else {
+            locationTextView.setVisibility(View.GONE);
+        }
 
         // Set up directions button click listener with location integration
         directionsButton.setOnClickListener(v -> {
             handleGetDirections();
         });
 
+        // Favorites were fetched during login, a change made since then is
+        // still waiting for the next sync and wins over the fetched state
+        if (clubId != null && savedInstanceState == null) {
+            Boolean pending = SyncScheduler.pendingFavorite(this, clubId);
+            Set<String> favorites = SessionStore.get().getFavoriteClubIds();
+            if (pending != null) {
+                favoriteCheckBox.setChecked(pending);
+            } else if (favorites != null) {
+                favoriteCheckBox.setChecked(favorites.contains(clubId));
+            }
+        }
+
+        // Favorite changes are sent to Supabase by the next background sync
+        favoriteCheckBox.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            if (clubId != null) {
+                SyncScheduler.queueFavorite(this, clubId, isChecked);
+            }
+        });
+
         // Set up reminder switch listener
         reminderSwitch.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            if (clubId != null) {
+                SyncScheduler.setReminder(this, clubId, isChecked);
+            }
             if (isChecked) {
                 // make the reminder one hour before the meeting
                 Toast.makeText(this, R.string.reminder_set, Toast.LENGTH_SHORT).show();
@@ -69,6 +127,99 @@ public class ClubDetailsActivity extends AppCompatActivity {
             favoriteCheckBox.setChecked(savedInstanceState.getBoolean("isFavorite", false));
             reminderSwitch.setChecked(savedInstanceState.getBoolean("reminderOn", false));
         }
+
+        // Posted runnables run after the first traversal, so the heavy
+        // sections are built once the summary is already on screen
+        getWindow().getDecorView().post(this::showDetailsSection);
+    }
+
+    /**
+     * Inflate the description, socials and map preview and fill them from the
+     * response cache. The catalog screen usually prefetched the club already.
+     */
+    private void showDetailsSection() {
+        if (isFinishing() || detailsSection != null) {
+            return;
+        }
+        ViewStub stub = findViewById(R.id.detailsStub);
+        detailsSection = stub.inflate();
+
+        TextView mapPreview = detailsSection.findViewById(R.id.mapPreviewTextView);
+        if (clubLocation != null && !clubLocation.isEmpty()) {
+            mapPreview.setText(getString(R.string.map_preview, clubLocation));
+            mapPreview.setOnClickListener(v -> handleGetDirections());
+        } else {
+            mapPreview.setVisibility(View.GONE);
+        }
+
+        String token = getSharedPreferences("APP_PREFS", MODE_PRIVATE).getString("JWT", null);
+        if (clubId == null || token == null) {
+            reportFullyDrawn();
+            return;
+        }
+
+        ResponseCache.get(this).get(CacheKey.club(clubId), clubLoader(token), new ResponseCache.Callback() {
+            @Override
+            public void onValue(String value, boolean stale) {
+                showDetails(value);
+                if (!stale) {
+                    reportFullyDrawn();
+                }
+            }
+
+            @Override
+            public void onError(IOException e) {
+                reportFullyDrawn();
+            }
+        });
+    }
+
+    private void showDetails(String res) {
+        if (isDestroyed()) {
+            return;
+        }
+        try {
+            JSONArray arr = new JSONArray(res);
+            JSONObject club = arr.getJSONObject(0);
+            setOptionalText(R.id.descriptionTextView, club, "description");
+            setOptionalText(R.id.socialsTextView, club, "socials");
+            setOptionalText(R.id.websiteTextView, club, "website");
+        } catch (Exception e) {
+            // Keep showing just the summary
+        }
+    }
+
+    private void setOptionalText(int viewId, JSONObject club, String column) {
+        TextView view = detailsSection.findViewById(viewId);
+        if (club.isNull(column) || club.optString(column).isEmpty()) {
+            view.setVisibility(View.GONE);
+        } else {
+            view.setText(club.optString(column));
+            view.setVisibility(View.VISIBLE);
+        }
+    }
+
+    /**
+     * Loads the detail columns of a club for ResponseCache. Shared with
+     * ClubsActivity, which prefetches with it before starting this screen.
+     */
+    static ResponseCache.Loader clubLoader(String token) {
+        return key -> {
+            try (Response response = SupabaseApi.client().newCall(SupabaseApi.club(token, key.id)).execute()) {
+                if (!response.isSuccessful()) {
+                    throw new IOException("HTTP " + response.code());
+                }
+                return response.body().string();
+            }
+        };
+    }
+
+    // The helper looks up the LocationManager, so only build it when Directions is used
+    private LocationHelper getLocationHelper() {
+        if (locationHelper == null) {
+            locationHelper = new LocationHelper(this);
+        }
+        return locationHelper;
     }
 
     private void handleGetDirections() {
@@ -77,7 +228,7 @@ public class ClubDetailsActivity extends AppCompatActivity {
             return;
         }
 
-        locationHelper.openDirections(this, clubLocation);
+        getLocationHelper().openDirections(this, clubLocation);
     }
 
 
@@ -0,0 +1,82 @@
+package com.example.cse476;
+
+import android.view.LayoutInflater;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Club buttons for ClubsActivity. Only the rows on screen have views, and each
+ * row reads its club from the repository columns when it is bound, so a full
+ * snapshot with thousands of clubs costs the same as a page of 25.
+ */
+public class ClubListAdapter extends RecyclerView.Adapter<ClubListAdapter.ClubViewHolder> {
+
+    /** What happens when a club row is touched */
+    public interface Listener {
+        /** The finger went down on the row, before it turns into a click */
+        void onClubPressed(ClubRepository.Club club);
+
+        void onClubClicked(View view, ClubRepository.Club club);
+    }
+
+    private final Listener listener;
+    private ClubRepository clubs;
+
+    public ClubListAdapter(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @param clubs - clubs from the session store, null to show nothing
+     */
+    public void setClubs(ClubRepository clubs) {
+        this.clubs = clubs;
+        notifyDataSetChanged();
+    }
+
+    @Override
+    public int getItemCount() {
+        return clubs == null ? 0 : clubs.size();
+    }
+
+    @NonNull
+    @Override
+    public ClubViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        Button button = (Button) LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_club, parent, false);
+        return new ClubViewHolder(button);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ClubViewHolder holder, int position) {
+        holder.club = clubs.get(position);
+        holder.button.setText(holder.club.name());
+    }
+
+    class ClubViewHolder extends RecyclerView.ViewHolder {
+        final Button button;
+        ClubRepository.Club club;
+
+        ClubViewHolder(Button button) {
+            super(button);
+            this.button = button;
+            // Listeners are set once per view, the bound club changes under them
+            button.setOnTouchListener((v, event) -> {
+                if (event.getActionMasked() == MotionEvent.ACTION_DOWN && club != null) {
+                    listener.onClubPressed(club);
+                }
+                return false;
+            });
+            button.setOnClickListener(v -> {
+                if (club != null) {
+                    listener.onClubClicked(v, club);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package com.example.cse476;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Compact in-memory club catalog. Instead of one object (or JSONObject) per
+ * club, every field is a column:
+ *   - id, slug, name and address are UTF-8 bytes packed into one array per column
+ *   - tags are interned into a TagDictionary and stored as primitive int arrays
+ *   - a BitSet per tag answers "which clubs have this tag" without a scan
+ * Club objects are flyweight views that only hold an index into the columns.
+ */
+public class ClubRepository {
+
+    /** Flyweight view of one club, fields are read from the repository columns */
+    public static final class Club {
+        private final ClubRepository repository;
+        private final int index;
+
+        private Club(ClubRepository repository, int index) {
+            this.repository = repository;
+            this.index = index;
+        }
+
+        public int index() {
+            return index;
+        }
+
+        public String id() {
+            return repository.ids.get(index);
+        }
+
+        public String slug() {
+            return repository.slugs.get(index);
+        }
+
+        public String name() {
+            return repository.names.get(index);
+        }
+
+        public String address() {
+            return repository.addresses.get(index);
+        }
+
+        public int tagCount() {
+            return repository.tagStarts[index + 1] - repository.tagStarts[index];
+        }
+
+        public boolean hasTag(int tagId) {
+            return tagId >= 0 && tagId < repository.clubsByTag.length
+                    && repository.clubsByTag[tagId].get(index);
+        }
+
+        public String[] tagNames() {
+            int start = repository.tagStarts[index];
+            String[] result = new String[tagCount()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = repository.tags.name(repository.tagIds[start + i]);
+            }
+            return result;
+        }
+    }
+
+    private final StringColumn ids;
+    private final StringColumn slugs;
+    private final StringColumn names;
+    private final StringColumn addresses;
+    private final TagDictionary tags;
+    // Club i has the tags tagIds[tagStarts[i]] until tagIds[tagStarts[i + 1]]
+    private final int[] tagStarts;
+    private final int[] tagIds;
+    private final BitSet[] clubsByTag;
+    // Open addressing table of club index + 1, keyed by the id hash
+    private final int[] idTable;
+    private final int size;
+
+    private ClubRepository(Builder builder) {
+        size = builder.size;
+        ids = builder.ids.trim();
+        slugs = builder.slugs.trim();
+        names = builder.names.trim();
+        addresses = builder.addresses.trim();
+        tags = builder.tags;
+        tagStarts = Arrays.copyOf(builder.tagStarts, size + 1);
+        tagIds = Arrays.copyOf(builder.tagIds, builder.tagStarts[size]);
+
+        clubsByTag = new BitSet[tags.size()];
+        for (int t = 0; t < clubsByTag.length; t++) {
+            clubsByTag[t] = new BitSet(size);
+        }
+        for (int c = 0; c < size; c++) {
+            for (int i = tagStarts[c]; i < tagStarts[c + 1]; i++) {
+                clubsByTag[tagIds[i]].set(c);
+            }
+        }
+
+        idTable = new int[Integer.highestOneBit(Math.max(size, 1) * 2) * 2];
+        for (int c = 0; c < size; c++) {
+            int slot = slot(ids.hash(c));
+            while (idTable[slot] != 0) {
+                slot = (slot + 1) & (idTable.length - 1);
+            }
+            idTable[slot] = c + 1;
+        }
+    }
+
+    /**
+     * Build a repository from the local catalog snapshot, tags are keyed by name
+     */
+    public static ClubRepository fromSnapshot(CatalogSnapshot snapshot) {
+        Builder builder = new Builder();
+        for (int c = 0; c < snapshot.clubCount(); c++) {
+            int tagCount = 0;
+            String[] clubTags = new String[snapshot.tagCount()];
+            for (int t = 0; t < snapshot.tagCount(); t++) {
+                if (snapshot.clubHasTag(c, t)) {
+                    clubTags[tagCount++] = snapshot.tagName(t);
+                }
+            }
+            builder.addClub(snapshot.clubField(c, CatalogSnapshot.FIELD_ID), snapshot.clubSlug(c),
+                    snapshot.clubName(c), snapshot.clubField(c, CatalogSnapshot.FIELD_ADDRESS),
+                    Arrays.copyOf(clubTags, tagCount));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Deterministic estimate of the heap this repository holds, from its
+     * array lengths and the layout of a 64-bit JVM with compressed references.
+     * Used by ClubRepositoryBenchmarkTest instead of measuring the live heap.
+     */
+    long footprintBytes() {
+        long bytes = objectBytes(9 * REFERENCE + 4);
+        for (StringColumn column : new StringColumn[]{ids, slugs, names, addresses}) {
+            bytes += objectBytes(2 * REFERENCE + 8) + arrayBytes(column.data.length, 1)
+                    + arrayBytes(column.starts.length, 4);
+        }
+        bytes += arrayBytes(tagStarts.length, 4) + arrayBytes(tagIds.length, 4) + arrayBytes(idTable.length, 4);
+        bytes += arrayBytes(clubsByTag.length, REFERENCE);
+        for (BitSet bits : clubsByTag) {
+            bytes += objectBytes(REFERENCE + 5) + arrayBytes(bits.size() / 64, 8);
+        }
+        // TagDictionary: the map, the list and one String per tag
+        bytes += objectBytes(2 * REFERENCE) + hashMapBytes(tags.size())
+                + objectBytes(REFERENCE + 8) + arrayBytes(tags.size(), REFERENCE);
+        for (int t = 0; t < tags.size(); t++) {
+            bytes += stringBytes(tags.name(t));
+            // Integer values above the small int cache are boxed
+            bytes += t >= 128 ? objectBytes(4) : 0;
+        }
+        return bytes;
+    }
+
+    // Heap layout used by footprintBytes(), shared with the benchmark's naive model
+    static final int OBJECT_HEADER = 12;
+    static final int ARRAY_HEADER = 16;
+    static final int REFERENCE = 4;
+
+    static long objectBytes(int fieldBytes) {
+        return align(OBJECT_HEADER + fieldBytes);
+    }
+
+    static long arrayBytes(int length, int elementBytes) {
+        return align(ARRAY_HEADER + (long) length * elementBytes);
+    }
+
+    // Compact Latin-1 string: value, hash, coder and hashIsZero fields plus the bytes
+    static long stringBytes(String value) {
+        return objectBytes(REFERENCE + 6) + arrayBytes(value.length(), 1);
+    }
+
+    // Table sized for the default 0.75 load factor plus one node per entry
+    static long hashMapBytes(int entries) {
+        int capacity = 16;
+        while (capacity * 3 / 4 < entries) {
+            capacity *= 2;
+        }
+        return objectBytes(REFERENCE * 3 + 16) + arrayBytes(capacity, REFERENCE)
+                + entries * objectBytes(4 + 3 * REFERENCE);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public TagDictionary tags() {
+        return tags;
+    }
+
+    /**
+     * @return a view of the club at the index, cheap enough to create per row
+     */
+    public Club get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("club " + index);
+        }
+        return new Club(this, index);
+    }
+
+    /**
+     * @return the club with the id, or null
+     */
+    public Club findById(String id) {
+        byte[] target = id.getBytes(StandardCharsets.UTF_8);
+        int slot = slot(Arrays.hashCode(target));
+        while (idTable[slot] != 0) {
+            int c = idTable[slot] - 1;
+            if (ids.equalsAt(c, target)) {
+                return new Club(this, c);
+            }
+            slot = (slot + 1) & (idTable.length - 1);
+        }
+        return null;
+    }
+
+    /**
+     * @return the indexes of the clubs that have the tag, in catalog order
+     */
+    public int[] clubsWithTag(String tagName) {
+        int tagId = tags.idOf(tagName);
+        if (tagId < 0) {
+            return new int[0];
+        }
+        return clubsByTag[tagId].stream().toArray();
+    }
+
+    private int slot(int hash) {
+        // Spread the bits so similar ids don't cluster
+        hash ^= hash >>> 16;
+        return (hash * 0x9E3779B9) & (idTable.length - 1);
+    }
+
+    /** Collects clubs, then freezes them into a ClubRepository */
+    public static class Builder {
+        private final StringColumn ids = new StringColumn();
+        private final StringColumn slugs = new StringColumn();
+        private final StringColumn names = new StringColumn();
+        private final StringColumn addresses = new StringColumn();
+        private final TagDictionary tags = new TagDictionary();
+        private int[] tagStarts = new int[16];
+        private int[] tagIds = new int[64];
+        private int size;
+
+        public Builder addClub(String id, String slug, String name, String address, String... tagNames) {
+            ids.add(id);
+            slugs.add(slug);
+            names.add(name);
+            addresses.add(address);
+
+            int start = tagStarts[size];
+            if (start + tagNames.length > tagIds.length) {
+                tagIds = Arrays.copyOf(tagIds, Math.max(tagIds.length * 2, start + tagNames.length));
+            }
+            for (String tagName : tagNames) {
+                tagIds[start++] = tags.intern(tagName);
+            }
+            size++;
+            if (size + 1 > tagStarts.length) {
+                tagStarts = Arrays.copyOf(tagStarts, tagStarts.length * 2);
+            }
+            tagStarts[size] = start;
+            return this;
+        }
+
+        public ClubRepository build() {
+            return new ClubRepository(this);
+        }
+    }
+
+    /**
+     * One string column: the UTF-8 bytes of every value back to back, plus
+     * the offset where each value starts. A null value is stored as -1 - offset.
+     */
+    static final class StringColumn {
+        private byte[] data = new byte[256];
+        private int[] starts = new int[17];
+        private int length;
+        private int count;
+
+        void add(String value) {
+            if (count + 2 > starts.length) {
+                starts = Arrays.copyOf(starts, starts.length * 2);
+            }
+            if (value == null) {
+                starts[count] = -1 - length;
+            } else {
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                if (length + utf8.length > data.length) {
+                    data = Arrays.copyOf(data, Math.max(data.length * 2, length + utf8.length));
+                }
+                System.arraycopy(utf8, 0, data, length, utf8.length);
+                starts[count] = length;
+                length += utf8.length;
+            }
+            count++;
+            starts[count] = length;
+        }
+
+        String get(int index) {
+            int start = starts[index];
+            if (start < 0) {
+                return null;
+            }
+            return new String(data, start, end(index) - start, StandardCharsets.UTF_8);
+        }
+
+        boolean equalsAt(int index, byte[] target) {
+            int start = starts[index];
+            if (start < 0 || end(index) - start != target.length) {
+                return false;
+            }
+            for (int i = 0; i < target.length; i++) {
+                if (data[start + i] != target[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Same as Arrays.hashCode on the value's bytes
+        int hash(int index) {
+            int start = starts[index];
+            if (start < 0) {
+                return 0;
+            }
+            int hash = 1;
+            for (int i = start; i < end(index); i++) {
+                hash = 31 * hash + data[i];
+            }
+            return hash;
+        }
+
+        // Drop the spare capacity once the column is complete
+        StringColumn trim() {
+            data = Arrays.copyOf(data, length);
+            starts = Arrays.copyOf(starts, count + 1);
+            return this;
+        }
+
+        private int end(int index) {
+            int end = starts[index + 1];
+            return end < 0 ? -1 - end : end;
+        }
+    }
+}
@@ -2,12 +2,15 @@ package com.example.cse476;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.view.View;
 import android.widget.Button;
 import android.widget.CheckBox;
 import android.widget.EditText;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.app.ActivityOptionsCompat;
+import androidx.recyclerview.widget.RecyclerView;
 
 import java.io.IOException;
 
@@ -22,6 +25,10 @@ public class ClubsActivity extends AppCompatActivity {
     private EditText searchEditText;
     private Button sampleClubButton;
     private CheckBox stemFilterCheckBox;
+    private ClubListAdapter clubListAdapter;
+
+    // Renders the catalog as soon as LoginBootstrap puts it in the store
+    private final SessionStore.Listener sessionListener = store -> showCatalog(store.getCatalog());
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -33,6 +40,10 @@ public class ClubsActivity extends AppCompatActivity {
         sampleClubButton = findViewById(R.id.sampleClubButton);
         stemFilterCheckBox = findViewById(R.id.stemFilterCheckBox);
 
+        RecyclerView clubList = findViewById(R.id.clubList);
+        clubListAdapter = new ClubListAdapter(clubListener);
+        clubList.setAdapter(clubListAdapter);
+
         Button profileButton = findViewById(R.id.profileButton);
         profileButton.setOnClickListener(v -> {
             startActivity(new Intent(ClubsActivity.this, ProfileActivity.class));
@@ -50,8 +61,58 @@ public class ClubsActivity extends AppCompatActivity {
             intent.putExtra("CLUB_LOCATION", getString(R.string.location));
             startActivity(intent);
         });
+
+        // The catalog may already be there if the bootstrap finished during the transition
+        SessionStore.get().addListener(sessionListener);
+        ClubRepository catalog = SessionStore.get().getCatalog();
+        if (catalog != null) {
+            showCatalog(catalog);
+        } else {
+            // Either the bootstrap is still loading it, or Android recreated this
+            // screen after process death and no login ran; in that case load
+            // catalog.bin (or the first page) again, the listener shows it
+            LoginBootstrap.restoreCatalog(this);
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        SessionStore.get().removeListener(sessionListener);
+        super.onDestroy();
+    }
+
+    /**
+     * Show the clubs in the list, the adapter only binds the visible rows
+     * @param clubs - clubs from the session store, null if not loaded yet
+     */
+    private void showCatalog(ClubRepository clubs) {
+        if (clubs == null) {
+            return;
+        }
+        clubListAdapter.setClubs(clubs);
     }
 
+    private final ClubListAdapter.Listener clubListener = new ClubListAdapter.Listener() {
+        @Override
+        public void onClubPressed(ClubRepository.Club club) {
+            // Start loading the details as soon as the finger goes down, the
+            // request then overlaps with the click and the screen transition
+            prefetchClub(club.id());
+        }
+
+        @Override
+        public void onClubClicked(View view, ClubRepository.Club club) {
+            Intent intent = new Intent(ClubsActivity.this, ClubDetailsActivity.class);
+            intent.putExtra("CLUB_ID", club.id());
+            intent.putExtra("CLUB_NAME", club.name());
+            intent.putExtra("CLUB_LOCATION", club.address());
+            // The club name moves into the title of the details screen
+            ActivityOptionsCompat options = ActivityOptionsCompat.makeSceneTransitionAnimation(
+                    ClubsActivity.this, view, getString(R.string.club_name_transition));
+            startActivity(intent, options.toBundle());
+        }
+    };
+
     @Override
     protected void onSaveInstanceState(Bundle outState) {
         super.onSaveInstanceState(outState);
@@ -66,6 +127,24 @@ public class ClubsActivity extends AppCompatActivity {
         stemFilterCheckBox.setChecked(savedInstanceState.getBoolean("stemFilter", false));
     }
 
+    private void prefetchClub(String clubId) {
+        String token = getSharedPreferences("APP_PREFS", MODE_PRIVATE).getString("JWT", null);
+        if (token == null) {
+            return;
+        }
+        ResponseCache.get(this).get(CacheKey.club(clubId), ClubDetailsActivity.clubLoader(token),
+                new ResponseCache.Callback() {
+                    @Override
+                    public void onValue(String value, boolean stale) {
+                        // Only warming the cache, ClubDetailsActivity shows it
+                    }
+
+                    @Override
+                    public void onError(IOException e) {
+                    }
+                });
+    }
+
     private void deleteAccount() {
         String token = getSharedPreferences("APP_PREFS", MODE_PRIVATE)
                 .getString("JWT", null);
@@ -77,15 +156,8 @@ public class ClubsActivity extends AppCompatActivity {
             return;
         }
 
-        OkHttpClient client = new OkHttpClient();
-        String url = Config.SUPABASE_URL + "/auth/v1/user";
-
-        Request request = new Request.Builder()
-                .url(url)
-                .delete()
-                .addHeader("apikey", Config.SUPABASE_ANNON_KEY)
-                .addHeader("Authorization", "Bearer " + token)
-                .build();
+        OkHttpClient client = SupabaseApi.client();
+        Request request = SupabaseApi.deleteUser(token);
 
         client.newCall(request).enqueue(new okhttp3.Callback() {
             @Override
@@ -99,10 +171,7 @@ public class ClubsActivity extends AppCompatActivity {
             public void onResponse(Call call, Response response) throws IOException {
                 if (response.isSuccessful()) {
 
-                    getSharedPreferences("APP_PREFS", MODE_PRIVATE)
-                            .edit()
-                            .clear()
-                            .apply();
+                    SessionStore.logout(ClubsActivity.this);
 
                     runOnUiThread(() -> {
                         Toast.makeText(ClubsActivity.this, "Account deleted", Toast.LENGTH_SHORT).show();
@@ -0,0 +1,228 @@
+package com.example.cse476;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Disk tier of ResponseCache, modeled on DiskLruCache. Every value is its own
+ * file and an append-only journal records what is in the cache:
+ *
+ *   CLEAN <name> <storedAt> <bytes>   value written and complete
+ *   READ <name>                       value was used, moves it up in the LRU
+ *   REMOVE <name>                     value deleted
+ *
+ * On open the journal is replayed to rebuild the LRU order. When the journal
+ * gets much longer than the number of entries it is rewritten.
+ */
+public class DiskCache {
+    private static final String JOURNAL = "journal";
+    private static final int REBUILD_THRESHOLD = 500;
+
+    /** A value read back from disk */
+    public static class Entry {
+        public final String value;
+        public final long storedAt;
+
+        Entry(String value, long storedAt) {
+            this.value = value;
+            this.storedAt = storedAt;
+        }
+    }
+
+    private static class Meta {
+        final long storedAt;
+        final long bytes;
+
+        Meta(long storedAt, long bytes) {
+            this.storedAt = storedAt;
+            this.bytes = bytes;
+        }
+    }
+
+    private final File directory;
+    private final long maxBytes;
+    // Access ordered, the first entry is the least recently used
+    private final LinkedHashMap<String, Meta> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+    private int redundantOps;
+    private Writer journal;
+
+    /**
+     * @param directory - folder that only this cache writes to
+     * @param maxBytes - total size of the values before old ones are evicted
+     */
+    public DiskCache(File directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("cannot create " + directory);
+        }
+        readJournal();
+        rebuildJournal();
+    }
+
+    public synchronized Entry get(String name) throws IOException {
+        Meta meta = entries.get(name);
+        if (meta == null) {
+            return null;
+        }
+        File file = valueFile(name);
+        byte[] data = new byte[(int) file.length()];
+        try (FileInputStream in = new FileInputStream(file)) {
+            int read = 0;
+            while (read < data.length) {
+                int n = in.read(data, read, data.length - read);
+                if (n < 0) {
+                    break;
+                }
+                read += n;
+            }
+        } catch (IOException e) {
+            // The file went missing under us, forget the entry
+            remove(name);
+            return null;
+        }
+        appendJournal("READ " + name);
+        return new Entry(new String(data, StandardCharsets.UTF_8), meta.storedAt);
+    }
+
+    public synchronized void put(String name, String value, long storedAt) throws IOException {
+        byte[] data = value.getBytes(StandardCharsets.UTF_8);
+        // Write next to the real file and rename, so a crash never leaves half a value
+        File tmp = new File(directory, name + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(data);
+        }
+        if (!tmp.renameTo(valueFile(name))) {
+            throw new IOException("cannot write cache entry " + name);
+        }
+
+        Meta old = entries.put(name, new Meta(storedAt, data.length));
+        if (old != null) {
+            size -= old.bytes;
+        }
+        size += data.length;
+        appendJournal("CLEAN " + name + " " + storedAt + " " + data.length);
+        trimToSize();
+    }
+
+    public synchronized void remove(String name) throws IOException {
+        Meta old = entries.remove(name);
+        if (old != null) {
+            size -= old.bytes;
+            valueFile(name).delete();
+            appendJournal("REMOVE " + name);
+        }
+    }
+
+    /**
+     * Delete every value, e.g. when the account they belong to is deleted
+     */
+    public synchronized void clear() throws IOException {
+        for (String name : entries.keySet()) {
+            valueFile(name).delete();
+        }
+        entries.clear();
+        size = 0;
+        rebuildJournal();
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    private void trimToSize() throws IOException {
+        Iterator<Map.Entry<String, Meta>> it = entries.entrySet().iterator();
+        while (size > maxBytes && it.hasNext()) {
+            Map.Entry<String, Meta> eldest = it.next();
+            it.remove();
+            size -= eldest.getValue().bytes;
+            valueFile(eldest.getKey()).delete();
+            appendJournal("REMOVE " + eldest.getKey());
+        }
+    }
+
+    private void readJournal() throws IOException {
+        File file = new File(directory, JOURNAL);
+        if (!file.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(" ");
+                if (parts[0].equals("CLEAN") && parts.length == 4) {
+                    Meta old = entries.put(parts[1], new Meta(Long.parseLong(parts[2]), Long.parseLong(parts[3])));
+                    if (old != null) {
+                        size -= old.bytes;
+                    }
+                    size += Long.parseLong(parts[3]);
+                } else if (parts[0].equals("READ") && parts.length == 2) {
+                    entries.get(parts[1]);
+                } else if (parts[0].equals("REMOVE") && parts.length == 2) {
+                    Meta old = entries.remove(parts[1]);
+                    if (old != null) {
+                        size -= old.bytes;
+                    }
+                }
+                // Anything else is a torn last line from a crash, skip it
+            }
+        } catch (NumberFormatException e) {
+            // A corrupt journal only costs us the cached data
+            entries.clear();
+            size = 0;
+        }
+
+        // Drop entries whose file is gone
+        Iterator<Map.Entry<String, Meta>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Meta> entry = it.next();
+            if (!valueFile(entry.getKey()).exists()) {
+                size -= entry.getValue().bytes;
+                it.remove();
+            }
+        }
+    }
+
+    // Write a journal with one CLEAN line per live entry, in LRU order
+    private void rebuildJournal() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+        File tmp = new File(directory, JOURNAL + ".tmp");
+        try (Writer writer = new FileWriter(tmp)) {
+            for (Map.Entry<String, Meta> entry : entries.entrySet()) {
+                writer.write("CLEAN " + entry.getKey() + " " + entry.getValue().storedAt
+                        + " " + entry.getValue().bytes + "\n");
+            }
+        }
+        if (!tmp.renameTo(new File(directory, JOURNAL))) {
+            throw new IOException("cannot replace cache journal");
+        }
+        journal = new FileWriter(new File(directory, JOURNAL), true);
+        redundantOps = 0;
+    }
+
+    private void appendJournal(String line) throws IOException {
+        journal.write(line + "\n");
+        journal.flush();
+        redundantOps++;
+        if (redundantOps >= REBUILD_THRESHOLD && redundantOps >= entries.size()) {
+            rebuildJournal();
+        }
+    }
+
+    private File valueFile(String name) {
+        return new File(directory, name + ".0");
+    }
+}
@@ -16,7 +16,7 @@ import okhttp3.*;
 // FIRST ACTIVITY - handles user login
 public class LoginActivity extends AppCompatActivity {
 
-    private final OkHttpClient client = new OkHttpClient();
+    private final OkHttpClient client = SupabaseApi.client();
 
     // Variables that hold references to UI components
     private EditText netIdEditText;
@@ -38,6 +38,18 @@ public class LoginActivity extends AppCompatActivity {
         rememberMeCheckBox = findViewById(R.id.rememberMeCheckBox);
         loginButton = findViewById(R.id.loginButton);
 
+        // Warm up the connection to Supabase while the user is typing
+        netIdEditText.setOnFocusChangeListener((v, hasFocus) -> {
+            if (hasFocus) {
+                SupabaseApi.preconnect();
+            }
+        });
+        passwordEditText.setOnFocusChangeListener((v, hasFocus) -> {
+            if (hasFocus) {
+                SupabaseApi.preconnect();
+            }
+        });
+
         // Set up login button click listener
         // When button is clicked, call attemptLogin() method
         loginButton.setOnClickListener(v -> attemptLogin());
@@ -95,17 +107,7 @@ public class LoginActivity extends AppCompatActivity {
             return;
         }
 
-        String url = Config.SUPABASE_URL + "/auth/v1/token?grant_type=password";
-        MediaType JSON = MediaType.parse("application/json; charset=utf-8");
-        String jsonBody = "{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}";
-        RequestBody body = RequestBody.create(jsonBody, JSON);
-
-        Request request = new Request.Builder()
-                .url(url)
-                .post(body)
-                .addHeader("apikey", Config.SUPABASE_ANNON_KEY)
-                .addHeader("Content-Type", "application/json")
-                .build();
+        Request request = SupabaseApi.passwordGrant(email, password);
 
         client.newCall(request).enqueue(new Callback() {
             @Override
@@ -146,12 +148,25 @@ public class LoginActivity extends AppCompatActivity {
 
                     // Normal successful login
                     String token = json.getString("access_token");
+                    // The access token expires after an hour, SyncWorker uses this to get a new one
+                    String refreshToken = json.optString("refresh_token", null);
+                    String userId = json.optJSONObject("user") != null
+                            ? json.getJSONObject("user").optString("id", null)
+                            : null;
 
                     getSharedPreferences("APP_PREFS", MODE_PRIVATE)
                             .edit()
                             .putString("JWT", token)
+                            .putString("USER_ID", userId)
+                            .putString("REFRESH_TOKEN", refreshToken)
                             .apply();
 
+                    // Fetch profile, favorites and the catalog in parallel for the next screens
+                    LoginBootstrap.start(LoginActivity.this, token, userId);
+
+                    // Keep catalog, favorites and reminders fresh in the background
+                    SyncScheduler.schedule(LoginActivity.this);
+
                     runOnUiThread(() -> {
                         Toast.makeText(LoginActivity.this, "Login successful!", Toast.LENGTH_SHORT).show();
                         startActivity(new Intent(LoginActivity.this, ClubsActivity.class));
@@ -0,0 +1,189 @@
+package com.example.cse476;
+
+import android.content.Context;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Response;
+
+/**
+ * Starts everything the first screens need as soon as the login token arrives.
+ * Profile, favorites and the first catalog page are requested in parallel on
+ * the warm connection from SupabaseApi.preconnect() and handed to the screens
+ * through SessionStore, so ClubsActivity opens without waiting on a chain of
+ * round trips.
+ */
+public class LoginBootstrap {
+    static final int FIRST_PAGE_SIZE = 25;
+
+    // Reading the local snapshot is disk work, keep it off the main thread
+    private static final ExecutorService DISK = Executors.newSingleThreadExecutor();
+
+    // False in a process Android started to restore a screen, no login ran in it
+    private static volatile boolean started;
+
+    private LoginBootstrap() {
+    }
+
+    /**
+     * Fire the bootstrap fetches, returns right away
+     * @param context - used to find the local catalog snapshot
+     * @param token - access token from /auth/v1/token
+     * @param userId - id of the logged in user, may be null
+     */
+    public static void start(Context context, String token, String userId) {
+        started = true;
+        SessionStore store = SessionStore.get();
+        store.reset(userId);
+
+        if (userId != null) {
+            fetchProfile(ResponseCache.get(context), store, token, userId);
+            fetchFavorites(store, token, userId);
+        }
+        loadCatalog(context.getApplicationContext(), store, token);
+    }
+
+    /**
+     * Fill the catalog of an empty store again, e.g. when Android recreates
+     * ClubsActivity after the process was killed and no login ran since
+     * @param context - used to find the local catalog snapshot and the token
+     */
+    public static void restoreCatalog(Context context) {
+        if (started) {
+            // start() is already loading it
+            return;
+        }
+        started = true;
+        String token = context.getSharedPreferences("APP_PREFS", Context.MODE_PRIVATE).getString("JWT", null);
+        loadCatalog(context.getApplicationContext(), SessionStore.get(), token);
+    }
+
+    private static void fetchProfile(ResponseCache cache, SessionStore store, String token, String userId) {
+        SupabaseApi.client().newCall(SupabaseApi.profile(token, userId)).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                // ProfileActivity loads it itself when the store is empty
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) throws IOException {
+                String res = response.body().string();
+                try {
+                    JSONArray arr = new JSONArray(res);
+                    if (arr.length() > 0) {
+                        store.setProfile(arr.getJSONObject(0));
+                        cache.put(CacheKey.profile(userId), res);
+                    }
+                } catch (Exception e) {
+                    // Same as a network error
+                }
+            }
+        });
+    }
+
+    private static void fetchFavorites(SessionStore store, String token, String userId) {
+        SupabaseApi.client().newCall(SupabaseApi.favorites(token, userId)).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) throws IOException {
+                String res = response.body().string();
+                try {
+                    JSONArray arr = new JSONArray(res);
+                    Set<String> ids = new HashSet<>();
+                    for (int i = 0; i < arr.length(); i++) {
+                        ids.add(arr.getJSONObject(i).getString("club_id"));
+                    }
+                    store.setFavoriteClubIds(ids);
+                } catch (Exception e) {
+                    // Favorites just stay unknown
+                }
+            }
+        });
+    }
+
+    /**
+     * Use the snapshot from the background sync when there is one, so no
+     * request is needed at all; otherwise fetch the first page.
+     */
+    private static void loadCatalog(Context context, SessionStore store, String token) {
+        File file = new File(context.getFilesDir(), SyncWorker.CATALOG_FILE);
+        if (file.exists()) {
+            DISK.execute(() -> {
+                try {
+                    store.setCatalog(ClubRepository.fromSnapshot(CatalogSnapshot.open(file)));
+                } catch (IOException e) {
+                    fetchCatalogPage(store, token);
+                }
+            });
+            return;
+        }
+        fetchCatalogPage(store, token);
+    }
+
+    /**
+     * Called by SyncWorker after it replaced the snapshot. If the screens have
+     * a catalog (possibly just the first page) it is swapped for the new one;
+     * a store that was never filled is left alone.
+     * Runs on the caller's thread, which must not be the main thread.
+     */
+    static void catalogReplaced(File file) {
+        SessionStore store = SessionStore.get();
+        if (store.getCatalog() == null) {
+            return;
+        }
+        try {
+            store.setCatalog(ClubRepository.fromSnapshot(CatalogSnapshot.open(file)));
+        } catch (IOException e) {
+            // Keep showing the catalog we have
+        }
+    }
+
+    private static void fetchCatalogPage(SessionStore store, String token) {
+        if (token == null) {
+            return;
+        }
+        SupabaseApi.client().newCall(SupabaseApi.clubsPage(token, 0, FIRST_PAGE_SIZE)).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) throws IOException {
+                String res = response.body().string();
+                try {
+                    JSONArray arr = new JSONArray(res);
+                    // Copy each row into the compact repository so the JSON can be dropped
+                    ClubRepository.Builder builder = new ClubRepository.Builder();
+                    for (int i = 0; i < arr.length(); i++) {
+                        JSONObject obj = arr.getJSONObject(i);
+                        // club_tags(tags(name)) gives [{"tags":{"name":"STEM"}}], keyed by
+                        // name like ClubRepository.fromSnapshot
+                        JSONArray tags = obj.optJSONArray("club_tags");
+                        String[] tagNames = new String[tags == null ? 0 : tags.length()];
+                        for (int t = 0; t < tagNames.length; t++) {
+                            tagNames[t] = tags.getJSONObject(t).getJSONObject("tags").getString("name");
+                        }
+                        builder.addClub(obj.getString("id"), obj.optString("slug"), obj.optString("name"),
+                                obj.isNull("address") ? null : obj.optString("address"), tagNames);
+                    }
+                    store.setCatalog(builder.build());
+                } catch (Exception e) {
+                    // ClubsActivity keeps showing the sample club
+                }
+            }
+        });
+    }
+}
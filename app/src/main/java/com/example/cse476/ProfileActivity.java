@@ -20,9 +20,11 @@ public class ProfileActivity extends AppCompatActivity {
     private EditText nameEdit, majorEdit, yearEdit, emailEdit;
     private Button saveBtn, deleteBtn;
 
-    private final OkHttpClient client = new OkHttpClient();
+    private final OkHttpClient client = SupabaseApi.client();
     private String token;
     private String userId;
+    // Last profile written into the fields, to tell whether the user edited them
+    private JSONObject shownProfile;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -47,46 +49,69 @@ public class ProfileActivity extends AppCompatActivity {
     }
 
     private void loadProfile() {
-        String url = Config.SUPABASE_URL + "/rest/v1/profiles?id=eq." + userId;
-
-        Request request = new Request.Builder()
-                .url(url)
-                .addHeader("apikey", Config.SUPABASE_ANNON_KEY)
-                .addHeader("Authorization", "Bearer " + token)
-                .build();
-
-        client.newCall(request).enqueue(new Callback() {
-            @Override public void onFailure(Call call, IOException e) {
-                runOnUiThread(() -> Toast.makeText(ProfileActivity.this, "Load error", Toast.LENGTH_SHORT).show());
+        // Usually already fetched by LoginBootstrap right after login
+        JSONObject cached = SessionStore.get().getProfile();
+        if (cached != null && userId != null && userId.equals(SessionStore.get().getUserId())) {
+            showProfile(cached);
+            return;
+        }
+
+        if (userId == null) {
+            Toast.makeText(this, "Not authenticated", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        // Otherwise show the cached copy right away, the cache refreshes it if it is stale
+        ResponseCache.get(this).get(CacheKey.profile(userId), key -> {
+            try (Response response = client.newCall(SupabaseApi.profile(token, userId)).execute()) {
+                if (!response.isSuccessful()) {
+                    throw new IOException("HTTP " + response.code());
+                }
+                return response.body().string();
             }
-
-            @Override public void onResponse(Call call, Response response) throws IOException {
-                String res = response.body().string();
-
+        }, new ResponseCache.Callback() {
+            @Override public void onValue(String res, boolean stale) {
+                // A stale value is followed by the refreshed one, which may come after the screen closed
+                if (isDestroyed()) {
+                    return;
+                }
                 try {
                     JSONArray arr = new JSONArray(res);
                     JSONObject obj = arr.getJSONObject(0);
 
-                    runOnUiThread(() -> {
-                        emailEdit.setText(obj.optString("email", ""));
-                        nameEdit.setText(obj.optString("name", ""));
-                        majorEdit.setText(obj.optString("major", ""));
-                        yearEdit.setText(obj.optString("year", ""));
-                    });
+                    SessionStore.get().setProfile(obj);
+                    // Don't overwrite what the user typed since the cached copy was shown
+                    if (shownProfile == null || !fieldsEdited()) {
+                        showProfile(obj);
+                    }
 
                 } catch (Exception e) {
-                    runOnUiThread(() ->
-                            Toast.makeText(ProfileActivity.this, "Parse error", Toast.LENGTH_SHORT).show()
-                    );
+                    Toast.makeText(ProfileActivity.this, "Parse error", Toast.LENGTH_SHORT).show();
                 }
             }
+
+            @Override public void onError(IOException e) {
+                Toast.makeText(ProfileActivity.this, "Load error", Toast.LENGTH_SHORT).show();
+            }
         });
     }
 
-    private void updateProfile() {
+    private void showProfile(JSONObject obj) {
+        shownProfile = obj;
+        emailEdit.setText(obj.optString("email", ""));
+        nameEdit.setText(obj.optString("name", ""));
+        majorEdit.setText(obj.optString("major", ""));
+        yearEdit.setText(obj.optString("year", ""));
+    }
+
+    private boolean fieldsEdited() {
+        return !emailEdit.getText().toString().equals(shownProfile.optString("email", ""))
+                || !nameEdit.getText().toString().equals(shownProfile.optString("name", ""))
+                || !majorEdit.getText().toString().equals(shownProfile.optString("major", ""))
+                || !yearEdit.getText().toString().equals(shownProfile.optString("year", ""));
+    }
 
-        String url = Config.SUPABASE_URL + "/rest/v1/profiles?id=eq." + userId;
-        MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    private void updateProfile() {
 
         String jsonBody = "{"
                 + "\"email\":\"" + emailEdit.getText() + "\","
@@ -95,15 +120,7 @@ public class ProfileActivity extends AppCompatActivity {
                 + "\"year\":\"" + yearEdit.getText() + "\""
                 + "}";
 
-        RequestBody body = RequestBody.create(jsonBody, JSON);
-
-        Request request = new Request.Builder()
-                .url(url)
-                .patch(body)
-                .addHeader("apikey", Config.SUPABASE_ANNON_KEY)
-                .addHeader("Authorization", "Bearer " + token)
-                .addHeader("Content-Type", "application/json")
-                .build();
+        Request request = SupabaseApi.updateProfile(token, userId, jsonBody);
 
         client.newCall(request).enqueue(new Callback() {
             @Override public void onFailure(Call call, IOException e) {
@@ -111,6 +128,9 @@ public class ProfileActivity extends AppCompatActivity {
             }
 
             @Override public void onResponse(Call call, Response response) {
+                // The stored copies are out of date now, load it again next time
+                SessionStore.get().setProfile(null);
+                ResponseCache.get(ProfileActivity.this).invalidate(CacheKey.profile(userId));
                 runOnUiThread(() ->
                         Toast.makeText(ProfileActivity.this, "Profile saved!", Toast.LENGTH_SHORT).show()
                 );
@@ -120,14 +140,7 @@ public class ProfileActivity extends AppCompatActivity {
 
     private void deleteProfile() {
 
-        String url = Config.SUPABASE_URL + "/rest/v1/profiles?id=eq." + userId;
-
-        Request request = new Request.Builder()
-                .url(url)
-                .delete()
-                .addHeader("apikey", Config.SUPABASE_ANNON_KEY)
-                .addHeader("Authorization", "Bearer " + token)
-                .build();
+        Request request = SupabaseApi.deleteProfile(token, userId);
 
         client.newCall(request).enqueue(new Callback() {
             @Override public void onFailure(Call call, IOException e) {
@@ -138,7 +151,7 @@ public class ProfileActivity extends AppCompatActivity {
                 runOnUiThread(() -> {
                     Toast.makeText(ProfileActivity.this, "Profile deleted!", Toast.LENGTH_SHORT).show();
                     // Log out user and go back to login
-                    getSharedPreferences("APP_PREFS", MODE_PRIVATE).edit().clear().apply();
+                    SessionStore.logout(ProfileActivity.this);
                     startActivity(new Intent(ProfileActivity.this, LoginActivity.class));
                     finish();
                 });
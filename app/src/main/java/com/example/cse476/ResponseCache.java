@@ -0,0 +1,300 @@
+package com.example.cse476;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two tier cache for Supabase responses: a memory LRU in front of a DiskCache.
+ * Lookups are stale-while-revalidate: whatever is cached is handed to the
+ * screen right away, and if it is older than its resource TTL (or missing)
+ * the loader runs in the background and the callback fires again with the
+ * fresh value.
+ */
+public class ResponseCache {
+
+    /** Fetches the current value, runs on a background thread */
+    public interface Loader {
+        String load(CacheKey key) throws IOException;
+    }
+
+    /** Receives cached and refreshed values, called on the callback executor */
+    public interface Callback {
+        /**
+         * @param value - the response body
+         * @param stale - true if a refresh is running and another call will follow
+         */
+        void onValue(String value, boolean stale);
+
+        /**
+         * Loading failed and nothing was cached
+         */
+        void onError(IOException e);
+    }
+
+    /** Counters for how the cache is doing */
+    public static class Stats {
+        public long hits;
+        public long staleHits;
+        public long misses;
+        public long loadFailures;
+    }
+
+    private static final int MEMORY_ENTRIES = 64;
+    private static final long DISK_BYTES = 5 * 1024 * 1024;
+    private static ResponseCache instance;
+
+    private final Map<CacheKey, DiskCache.Entry> memory;
+    private final DiskCache disk;
+    private final Executor background;
+    private final Executor callbacks;
+    // Callbacks waiting on a running refresh, so repeat visits share one request
+    private final Map<CacheKey, List<Callback>> refreshing = new HashMap<>();
+    // Bumped by invalidate() and clear(). Disk writes and refreshes that started
+    // before the bump are dropped, so nothing forgotten comes back afterwards.
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loadFailures = new AtomicLong();
+
+    ResponseCache(DiskCache disk, int memoryEntries, Executor background, Executor callbacks) {
+        this.disk = disk;
+        this.background = background;
+        this.callbacks = callbacks;
+        this.memory = new LinkedHashMap<CacheKey, DiskCache.Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, DiskCache.Entry> eldest) {
+                return size() > memoryEntries;
+            }
+        };
+    }
+
+    /**
+     * App wide cache in the cache dir, callbacks run on the main thread
+     */
+    public static synchronized ResponseCache get(Context context) {
+        if (instance == null) {
+            DiskCache disk = null;
+            try {
+                disk = new DiskCache(new File(context.getCacheDir(), "responses"), DISK_BYTES);
+            } catch (IOException e) {
+                // Keep working with the memory tier only
+            }
+            ExecutorService background = Executors.newFixedThreadPool(2);
+            Handler main = new Handler(Looper.getMainLooper());
+            instance = new ResponseCache(disk, MEMORY_ENTRIES, background, main::post);
+        }
+        return instance;
+    }
+
+    /**
+     * Look up a key. A memory hit is delivered before this returns; anything
+     * that needs the disk or the network is delivered later.
+     * @param key - what to look up
+     * @param loader - fetches the value when it is missing or stale
+     * @param callback - gets the cached value and/or the refreshed one
+     */
+    public void get(CacheKey key, Loader loader, Callback callback) {
+        DiskCache.Entry cached;
+        synchronized (memory) {
+            cached = memory.get(key);
+        }
+        if (cached != null) {
+            deliver(key, cached, loader, callback);
+            return;
+        }
+
+        background.execute(() -> {
+            DiskCache.Entry fromDisk = readDisk(key);
+            if (fromDisk != null) {
+                synchronized (memory) {
+                    memory.put(key, fromDisk);
+                }
+                callbacks.execute(() -> deliver(key, fromDisk, loader, callback));
+            } else {
+                misses.incrementAndGet();
+                refresh(key, loader, callback, false);
+            }
+        });
+    }
+
+    /**
+     * Store a value, e.g. one that came from another request
+     */
+    public void put(CacheKey key, String value) {
+        DiskCache.Entry entry = new DiskCache.Entry(value, System.currentTimeMillis());
+        long gen;
+        synchronized (memory) {
+            memory.put(key, entry);
+            gen = generation.get();
+        }
+        background.execute(() -> writeDisk(key, entry, gen));
+    }
+
+    /**
+     * Forget a key, e.g. after the user edited the resource
+     */
+    public void invalidate(CacheKey key) {
+        synchronized (memory) {
+            memory.remove(key);
+            generation.incrementAndGet();
+        }
+        background.execute(() -> {
+            if (disk != null) {
+                try {
+                    disk.remove(key.diskName());
+                } catch (IOException e) {
+                    // The stale file gets evicted eventually
+                }
+            }
+        });
+    }
+
+    /**
+     * Forget everything, used when the account is deleted so no profile
+     * data stays behind in memory or on disk
+     */
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+            generation.incrementAndGet();
+        }
+        background.execute(() -> {
+            if (disk != null) {
+                try {
+                    disk.clear();
+                } catch (IOException e) {
+                    // Nothing else to do, the files are only readable by the app
+                }
+            }
+        });
+    }
+
+    public Stats stats() {
+        Stats stats = new Stats();
+        stats.hits = hits.get();
+        stats.staleHits = staleHits.get();
+        stats.misses = misses.get();
+        stats.loadFailures = loadFailures.get();
+        return stats;
+    }
+
+    private void deliver(CacheKey key, DiskCache.Entry entry, Loader loader, Callback callback) {
+        boolean stale = System.currentTimeMillis() - entry.storedAt > key.resource.ttlMillis;
+        if (!stale) {
+            hits.incrementAndGet();
+            callback.onValue(entry.value, false);
+            return;
+        }
+        staleHits.incrementAndGet();
+        callback.onValue(entry.value, true);
+        background.execute(() -> refresh(key, loader, callback, true));
+    }
+
+    // Runs on the background executor
+    private void refresh(CacheKey key, Loader loader, Callback callback, boolean hadValue) {
+        // A callback that already shows a stale value doesn't need to hear about errors
+        Callback waiter = hadValue ? new Callback() {
+            @Override
+            public void onValue(String value, boolean stale) {
+                callback.onValue(value, stale);
+            }
+
+            @Override
+            public void onError(IOException e) {
+            }
+        } : callback;
+
+        synchronized (refreshing) {
+            List<Callback> waiting = refreshing.get(key);
+            if (waiting != null) {
+                waiting.add(waiter);
+                return;
+            }
+            waiting = new ArrayList<>();
+            waiting.add(waiter);
+            refreshing.put(key, waiting);
+        }
+
+        long gen = generation.get();
+        String value = null;
+        IOException error = null;
+        try {
+            value = loader.load(key);
+            DiskCache.Entry entry = new DiskCache.Entry(value, System.currentTimeMillis());
+            // The waiting callbacks still get the value, it just isn't cached
+            synchronized (memory) {
+                if (gen == generation.get()) {
+                    memory.put(key, entry);
+                }
+            }
+            writeDisk(key, entry, gen);
+        } catch (IOException e) {
+            loadFailures.incrementAndGet();
+            error = e;
+        }
+
+        List<Callback> waiting;
+        synchronized (refreshing) {
+            waiting = refreshing.remove(key);
+        }
+        String result = value;
+        IOException failure = error;
+        callbacks.execute(() -> {
+            for (Callback each : waiting) {
+                if (failure == null) {
+                    each.onValue(result, false);
+                } else {
+                    each.onError(failure);
+                }
+            }
+        });
+    }
+
+    private DiskCache.Entry readDisk(CacheKey key) {
+        if (disk == null) {
+            return null;
+        }
+        try {
+            return disk.get(key.diskName());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param gen - generation when the value was produced, the write is
+     *            skipped if invalidate() or clear() ran since
+     */
+    private void writeDisk(CacheKey key, DiskCache.Entry entry, long gen) {
+        if (disk == null) {
+            return;
+        }
+        // Checked under the disk lock: a clear() that bumps the generation after
+        // the check queues its own disk task, which waits for this write and removes it
+        synchronized (disk) {
+            if (gen != generation.get()) {
+                return;
+            }
+            try {
+                disk.put(key.diskName(), entry.value, entry.storedAt);
+            } catch (IOException e) {
+                // Still cached in memory
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.cse476;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * In-memory store for the data fetched right after login, shared by all
+ * screens. LoginBootstrap fills it in the background and screens read it
+ * instead of starting their own requests. Listeners are called on the main
+ * thread whenever something new arrives.
+ */
+public class SessionStore {
+
+    public interface Listener {
+        void onSessionUpdated(SessionStore store);
+    }
+
+    private static final SessionStore INSTANCE = new SessionStore();
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<Listener> listeners = new ArrayList<>();
+
+    private String userId;
+    private JSONObject profile;
+    private Set<String> favoriteClubIds;
+    private ClubRepository catalog;
+
+    private SessionStore() {
+    }
+
+    public static SessionStore get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Drop everything from the previous user, called before a new bootstrap
+     * and on logout
+     */
+    public synchronized void reset(String userId) {
+        this.userId = userId;
+        profile = null;
+        favoriteClubIds = null;
+        catalog = null;
+    }
+
+    /**
+     * Forget the logged in user everywhere: the sync job and its queue, this
+     * store, cached responses (the profile holds email, name and major) and
+     * the saved tokens. Used by both account delete paths.
+     */
+    public static void logout(Context context) {
+        SyncScheduler.cancel(context);
+        get().reset(null);
+        ResponseCache.get(context).clear();
+        context.getSharedPreferences("APP_PREFS", Context.MODE_PRIVATE).edit().clear().apply();
+    }
+
+    public synchronized String getUserId() {
+        return userId;
+    }
+
+    /**
+     * @return the profiles row of the logged in user, or null if not loaded yet
+     */
+    public synchronized JSONObject getProfile() {
+        return profile;
+    }
+
+    public void setProfile(JSONObject profile) {
+        synchronized (this) {
+            this.profile = profile;
+        }
+        notifyListeners();
+    }
+
+    /**
+     * @return the ids of the user's favorite clubs, or null if not loaded yet
+     */
+    public synchronized Set<String> getFavoriteClubIds() {
+        return favoriteClubIds == null ? null : Collections.unmodifiableSet(favoriteClubIds);
+    }
+
+    public void setFavoriteClubIds(Set<String> favoriteClubIds) {
+        synchronized (this) {
+            this.favoriteClubIds = new HashSet<>(favoriteClubIds);
+        }
+        notifyListeners();
+    }
+
+    /**
+     * @return the catalog (or its first page), or null if not loaded yet
+     */
+    public synchronized ClubRepository getCatalog() {
+        return catalog;
+    }
+
+    public void setCatalog(ClubRepository catalog) {
+        synchronized (this) {
+            this.catalog = catalog;
+        }
+        notifyListeners();
+    }
+
+    // Call from the main thread, e.g. in onCreate/onDestroy
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private void notifyListeners() {
+        mainHandler.post(() -> {
+            for (Listener listener : new ArrayList<>(listeners)) {
+                listener.onSessionUpdated(this);
+            }
+        });
+    }
+}
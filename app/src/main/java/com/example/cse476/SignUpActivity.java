@@ -36,20 +36,8 @@ public class SignUpActivity extends AppCompatActivity {
             return;
         }
 
-        String url = Config.SUPABASE_URL + "/auth/v1/signup";
-
-        MediaType JSON = MediaType.parse("application/json; charset=utf-8");
-        String bodyString = "{\"email\":\"" + email + "\",\"password\":\"" + pwd + "\"}";
-        RequestBody body = RequestBody.create(JSON, bodyString);
-
-        OkHttpClient client = new OkHttpClient();
-
-        Request request = new Request.Builder()
-                .url(url)
-                .post(body)
-                .addHeader("apikey", Config.SUPABASE_ANNON_KEY)
-                .addHeader("Content-Type", "application/json")
-                .build();
+        OkHttpClient client = SupabaseApi.client();
+        Request request = SupabaseApi.signup(email, pwd);
 
         client.newCall(request).enqueue(new Callback() {
             @Override public void onFailure(Call call, IOException e) {
@@ -0,0 +1,182 @@
+package com.example.cse476;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * Shared OkHttp client and the Supabase requests the app makes. All urls
+ * start at Config.baseUrl(), so tests can aim them at a mock server.
+ * Using one client means one connection pool, so the connection opened by
+ * preconnect() is the one the token request and the bootstrap fetches reuse.
+ */
+public class SupabaseApi {
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    // Don't warm up again if the last warm up is this recent, the pool keeps it alive
+    private static final long PRECONNECT_INTERVAL_MS = 30_000;
+
+    private static final OkHttpClient CLIENT = new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(5, 5, TimeUnit.MINUTES))
+            .build();
+    private static final AtomicLong lastPreconnect = new AtomicLong();
+
+    private SupabaseApi() {
+    }
+
+    public static OkHttpClient client() {
+        return CLIENT;
+    }
+
+    /**
+     * Open the DNS + TCP + TLS connection to Supabase ahead of time, so the
+     * login request goes out on a warm connection. The response is ignored.
+     */
+    public static void preconnect() {
+        long now = System.currentTimeMillis();
+        long last = lastPreconnect.get();
+        if (now - last < PRECONNECT_INTERVAL_MS || !lastPreconnect.compareAndSet(last, now)) {
+            return;
+        }
+
+        Request request = new Request.Builder()
+                .url(Config.baseUrl() + "/auth/v1/health")
+                .head()
+                .addHeader("apikey", Config.SUPABASE_ANNON_KEY)
+                .build();
+
+        CLIENT.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                // Nothing to do, the login request will simply connect itself
+                lastPreconnect.set(0);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                response.close();
+            }
+        });
+    }
+
+    public static Request passwordGrant(String email, String password) {
+        String jsonBody = "{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}";
+        return new Request.Builder()
+                .url(Config.baseUrl() + "/auth/v1/token?grant_type=password")
+                .post(RequestBody.create(jsonBody, JSON))
+                .addHeader("apikey", Config.SUPABASE_ANNON_KEY)
+                .addHeader("Content-Type", "application/json")
+                .build();
+    }
+
+    /**
+     * Trade the refresh token saved at login for a new access token, the
+     * access token itself expires after an hour
+     */
+    public static Request refreshGrant(String refreshToken) {
+        String jsonBody = "{\"refresh_token\":\"" + refreshToken + "\"}";
+        return new Request.Builder()
+                .url(Config.baseUrl() + "/auth/v1/token?grant_type=refresh_token")
+                .post(RequestBody.create(jsonBody, JSON))
+                .addHeader("apikey", Config.SUPABASE_ANNON_KEY)
+                .addHeader("Content-Type", "application/json")
+                .build();
+    }
+
+    public static Request signup(String email, String password) {
+        String jsonBody = "{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}";
+        return new Request.Builder()
+                .url(Config.baseUrl() + "/auth/v1/signup")
+                .post(RequestBody.create(jsonBody, JSON))
+                .addHeader("apikey", Config.SUPABASE_ANNON_KEY)
+                .addHeader("Content-Type", "application/json")
+                .build();
+    }
+
+    public static Request deleteUser(String token) {
+        return authorized(token, Config.baseUrl() + "/auth/v1/user").newBuilder().delete().build();
+    }
+
+    public static Request profile(String token, String userId) {
+        return authorized(token, Config.baseUrl() + "/rest/v1/profiles?id=eq." + userId);
+    }
+
+    /**
+     * @param jsonBody - the changed profile columns
+     */
+    public static Request updateProfile(String token, String userId, String jsonBody) {
+        return authorized(token, Config.baseUrl() + "/rest/v1/profiles?id=eq." + userId).newBuilder()
+                .patch(RequestBody.create(jsonBody, JSON))
+                .addHeader("Content-Type", "application/json")
+                .build();
+    }
+
+    public static Request deleteProfile(String token, String userId) {
+        return authorized(token, Config.baseUrl() + "/rest/v1/profiles?id=eq." + userId).newBuilder()
+                .delete()
+                .build();
+    }
+
+    public static Request favorites(String token, String userId) {
+        return authorized(token, Config.baseUrl() + "/rest/v1/favorites?select=club_id&user_id=eq." + userId);
+    }
+
+    public static Request addFavorite(String token, String userId, String clubId) {
+        String jsonBody = "{\"user_id\":\"" + userId + "\",\"club_id\":\"" + clubId + "\"}";
+        return authorized(token, Config.baseUrl() + "/rest/v1/favorites").newBuilder()
+                .post(RequestBody.create(jsonBody, JSON))
+                .addHeader("Prefer", "resolution=ignore-duplicates")
+                .build();
+    }
+
+    public static Request removeFavorite(String token, String userId, String clubId) {
+        return authorized(token, Config.baseUrl()
+                + "/rest/v1/favorites?user_id=eq." + userId + "&club_id=eq." + clubId).newBuilder()
+                .delete()
+                .build();
+    }
+
+    /**
+     * One page of the club catalog, ordered by name. Tags are embedded by
+     * name, the same key the catalog snapshot uses.
+     * @param offset - index of the first club
+     * @param limit - page size
+     */
+    public static Request clubsPage(String token, int offset, int limit) {
+        return authorized(token, Config.baseUrl()
+                + "/rest/v1/clubs?select=id,slug,name,address,club_tags(tags(name))&order=name"
+                + "&offset=" + offset + "&limit=" + limit);
+    }
+
+    /**
+     * The detail columns of one club, for the details screen
+     */
+    public static Request club(String token, String clubId) {
+        return authorized(token, Config.baseUrl()
+                + "/rest/v1/clubs?select=id,description,socials,website,address,email,phone&id=eq." + clubId);
+    }
+
+    /**
+     * A file from the catalog snapshots bucket
+     */
+    public static Request snapshotObject(String token, String name) {
+        return authorized(token, Config.baseUrl() + Config.SNAPSHOT_BUCKET_PATH + name);
+    }
+
+    private static Request authorized(String token, String url) {
+        return new Request.Builder()
+                .url(url)
+                .addHeader("apikey", Config.SUPABASE_ANNON_KEY)
+                .addHeader("Authorization", "Bearer " + token)
+                .build();
+    }
+}
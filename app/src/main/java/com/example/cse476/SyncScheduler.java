@@ -0,0 +1,184 @@
+package com.example.cse476;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules the background sync job and keeps the small bits of state it needs
+ * (pending favorite changes, reminders and run stats) in SharedPreferences.
+ * Screens only queue work here, the network calls all happen in SyncWorker.
+ */
+public class SyncScheduler {
+    public static final String PREFS = "SYNC_PREFS";
+    private static final String WORK_NAME = "catalog_sync";
+    private static final String FIRST_SYNC_WORK_NAME = "catalog_first_sync";
+
+    // How often WorkManager may run the job (it waits for the constraints too)
+    private static final long SYNC_INTERVAL_HOURS = 6;
+    private static final long BACKOFF_SECONDS = 60;
+
+    // Keys for queued work
+    static final String KEY_PENDING_FAV_ADD = "PENDING_FAV_ADD";
+    static final String KEY_PENDING_FAV_REMOVE = "PENDING_FAV_REMOVE";
+    static final String KEY_REMINDERS = "REMINDERS";
+
+    // Keys for sync stats
+    static final String KEY_RUN_COUNT = "RUN_COUNT";
+    static final String KEY_FAILURE_COUNT = "FAILURE_COUNT";
+    static final String KEY_LAST_SYNC_AT = "LAST_SYNC_AT";
+    static final String KEY_LAST_RESULT = "LAST_RESULT";
+    static final String KEY_CATALOG_CHANGED = "CATALOG_CHANGED";
+    static final String KEY_FAVORITES_FLUSHED = "FAVORITES_FLUSHED";
+    static final String KEY_REMINDER_COUNT = "REMINDER_COUNT";
+
+    private SyncScheduler() {
+    }
+
+    /**
+     * Enqueue the periodic sync job. Safe to call on every launch, an already
+     * scheduled job is kept as is.
+     * @param context - any context, the application context is used
+     */
+    public static void schedule(Context context) {
+        // Only sync on wifi while charging so the radio isn't woken up during the day
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.UNMETERED)
+                .setRequiresCharging(true)
+                .build();
+
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                SyncWorker.class, SYNC_INTERVAL_HOURS, TimeUnit.HOURS)
+                .setConstraints(constraints)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .build();
+
+        WorkManager workManager = WorkManager.getInstance(context.getApplicationContext());
+        workManager.enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+
+        // On first install don't wait for wifi + charging, the full snapshot is one small download
+        File catalog = new File(context.getFilesDir(), SyncWorker.CATALOG_FILE);
+        if (!catalog.exists()) {
+            OneTimeWorkRequest firstSync = new OneTimeWorkRequest.Builder(SyncWorker.class)
+                    .setConstraints(new Constraints.Builder()
+                            .setRequiredNetworkType(NetworkType.CONNECTED)
+                            .build())
+                    .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_SECONDS, TimeUnit.SECONDS)
+                    .build();
+            workManager.enqueueUniqueWork(FIRST_SYNC_WORK_NAME, ExistingWorkPolicy.KEEP, firstSync);
+        }
+    }
+
+    /**
+     * Stop the sync job, used when the user logs out or deletes the account
+     * @param context - any context
+     */
+    public static void cancel(Context context) {
+        WorkManager workManager = WorkManager.getInstance(context.getApplicationContext());
+        workManager.cancelUniqueWork(WORK_NAME);
+        workManager.cancelUniqueWork(FIRST_SYNC_WORK_NAME);
+        prefs(context).edit().clear().apply();
+    }
+
+    /**
+     * Remember a favorite change so the next sync run can push it to Supabase
+     * @param clubId - id of the club
+     * @param favorite - true to add the favorite, false to remove it
+     */
+    public static synchronized void queueFavorite(Context context, String clubId, boolean favorite) {
+        SharedPreferences prefs = prefs(context);
+        Set<String> add = new HashSet<>(prefs.getStringSet(KEY_PENDING_FAV_ADD, new HashSet<>()));
+        Set<String> remove = new HashSet<>(prefs.getStringSet(KEY_PENDING_FAV_REMOVE, new HashSet<>()));
+
+        // The latest change wins, so a club is never in both sets
+        if (favorite) {
+            remove.remove(clubId);
+            add.add(clubId);
+        } else {
+            add.remove(clubId);
+            remove.add(clubId);
+        }
+
+        prefs.edit()
+                .putStringSet(KEY_PENDING_FAV_ADD, add)
+                .putStringSet(KEY_PENDING_FAV_REMOVE, remove)
+                .apply();
+    }
+
+    /**
+     * The favorite state the user last chose for a club that isn't synced yet
+     * @param clubId - id of the club
+     * @return true or false if a change is queued, null if the server state is current
+     */
+    public static synchronized Boolean pendingFavorite(Context context, String clubId) {
+        SharedPreferences prefs = prefs(context);
+        if (prefs.getStringSet(KEY_PENDING_FAV_ADD, new HashSet<>()).contains(clubId)) {
+            return true;
+        }
+        if (prefs.getStringSet(KEY_PENDING_FAV_REMOVE, new HashSet<>()).contains(clubId)) {
+            return false;
+        }
+        return null;
+    }
+
+    /**
+     * Turn the meeting reminder for a club on or off
+     * @param clubId - id of the club
+     * @param enabled - whether the reminder is on
+     */
+    public static synchronized void setReminder(Context context, String clubId, boolean enabled) {
+        SharedPreferences prefs = prefs(context);
+        Set<String> reminders = new HashSet<>(prefs.getStringSet(KEY_REMINDERS, new HashSet<>()));
+        if (enabled) {
+            reminders.add(clubId);
+        } else {
+            reminders.remove(clubId);
+        }
+        prefs.edit().putStringSet(KEY_REMINDERS, reminders).apply();
+    }
+
+    /**
+     * Read the stats written by the last sync runs
+     * @return a snapshot of the sync stats
+     */
+    public static Stats getStats(Context context) {
+        SharedPreferences prefs = prefs(context);
+        Stats stats = new Stats();
+        stats.runCount = prefs.getInt(KEY_RUN_COUNT, 0);
+        stats.failureCount = prefs.getInt(KEY_FAILURE_COUNT, 0);
+        stats.lastSyncAt = prefs.getLong(KEY_LAST_SYNC_AT, 0);
+        stats.lastResult = prefs.getString(KEY_LAST_RESULT, "never");
+        stats.catalogChanged = prefs.getBoolean(KEY_CATALOG_CHANGED, false);
+        stats.favoritesFlushed = prefs.getInt(KEY_FAVORITES_FLUSHED, 0);
+        stats.reminderCount = prefs.getInt(KEY_REMINDER_COUNT, 0);
+        return stats;
+    }
+
+    static SharedPreferences prefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+
+    // Plain holder for the sync stats
+    public static class Stats {
+        public int runCount;
+        public int failureCount;
+        public long lastSyncAt;
+        public String lastResult;
+        public boolean catalogChanged;
+        public int favoritesFlushed;
+        public int reminderCount;
+    }
+}
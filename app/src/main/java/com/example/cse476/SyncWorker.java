@@ -0,0 +1,311 @@
+package com.example.cse476;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.NonNull;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Background job scheduled by SyncScheduler. One run does all the network work
+ * the app needs so the radio is only used once:
+ * 1. refresh the club catalog stored on disk
+ * 2. push queued favorite changes
+ * 3. recompute reminders against the new catalog
+ */
+public class SyncWorker extends Worker {
+    static final String CATALOG_FILE = "catalog.bin";
+
+    // Further behind than this, one full snapshot is cheaper than the diffs
+    private static final long MAX_DIFF_CHAIN = 10;
+
+    // The first-sync job and the periodic job can start together; one run at a
+    // time keeps them from sharing a refresh token or sending favorites twice
+    private static final Object SYNC_LOCK = new Object();
+
+    private final OkHttpClient client = SupabaseApi.client();
+
+    public SyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        // Prefs are read inside the lock, so a waiting run sees the tokens and
+        // queue the previous run left behind
+        synchronized (SYNC_LOCK) {
+            return sync();
+        }
+    }
+
+    private Result sync() {
+        Context context = getApplicationContext();
+        SharedPreferences sync = SyncScheduler.prefs(context);
+        SharedPreferences app = context.getSharedPreferences("APP_PREFS", Context.MODE_PRIVATE);
+        String token = app.getString("JWT", null);
+        String userId = app.getString("USER_ID", null);
+        String refreshToken = app.getString("REFRESH_TOKEN", null);
+
+        sync.edit().putInt(SyncScheduler.KEY_RUN_COUNT, sync.getInt(SyncScheduler.KEY_RUN_COUNT, 0) + 1).apply();
+
+        // Nothing to do until someone logs in
+        if (token == null) {
+            recordResult(sync, "skipped: not authenticated");
+            return Result.success();
+        }
+
+        try {
+            // The access token from login expires after an hour, long before most runs
+            if (refreshToken != null) {
+                token = refreshSession(app, refreshToken);
+            }
+
+            boolean changed = refreshCatalog(token);
+            if (changed) {
+                // Open screens switch to the new catalog, e.g. from the 25 club first page
+                LoginBootstrap.catalogReplaced(new File(context.getFilesDir(), CATALOG_FILE));
+            }
+            int flushed = userId == null ? 0 : flushFavorites(sync, token, userId);
+            int reminders = recomputeReminders(sync);
+
+            sync.edit()
+                    .putBoolean(SyncScheduler.KEY_CATALOG_CHANGED, changed)
+                    .putInt(SyncScheduler.KEY_FAVORITES_FLUSHED, flushed)
+                    .putInt(SyncScheduler.KEY_REMINDER_COUNT, reminders)
+                    .apply();
+            recordResult(sync, "success");
+            return Result.success();
+        } catch (SessionExpiredException e) {
+            // Retrying can't fix a revoked session, the user has to log in again
+            sync.edit().putInt(SyncScheduler.KEY_FAILURE_COUNT,
+                    sync.getInt(SyncScheduler.KEY_FAILURE_COUNT, 0) + 1).apply();
+            recordResult(sync, "failed: " + e.getMessage());
+            return Result.failure();
+        } catch (IOException e) {
+            // WorkManager retries with the exponential backoff set in SyncScheduler
+            sync.edit().putInt(SyncScheduler.KEY_FAILURE_COUNT,
+                    sync.getInt(SyncScheduler.KEY_FAILURE_COUNT, 0) + 1).apply();
+            recordResult(sync, "retry: " + e.getMessage());
+            return Result.retry();
+        }
+    }
+
+    /**
+     * Get a new access token and save it along with the new refresh token.
+     * Saved with commit() because Supabase only accepts each refresh token once
+     * @return the new access token
+     */
+    private String refreshSession(SharedPreferences app, String refreshToken) throws IOException {
+        try (Response response = client.newCall(SupabaseApi.refreshGrant(refreshToken)).execute()) {
+            if (response.code() == 400 || response.code() == 401) {
+                throw new SessionExpiredException("session expired");
+            }
+            if (!response.isSuccessful()) {
+                throw new IOException("token refresh HTTP " + response.code());
+            }
+            JSONObject json = new JSONObject(response.body().string());
+            String token = json.getString("access_token");
+            app.edit()
+                    .putString("JWT", token)
+                    .putString("REFRESH_TOKEN", json.optString("refresh_token", refreshToken))
+                    .commit();
+            return token;
+        } catch (JSONException e) {
+            throw new IOException("bad token response", e);
+        }
+    }
+
+    /**
+     * Bring the catalog snapshot up to date. The small manifest is read first,
+     * so a phone that already has the published version downloads nothing else.
+     * A phone that is behind applies the diffs one version at a time; without a
+     * snapshot, or when a diff is missing, the full snapshot is downloaded.
+     * @return true if the local catalog was replaced
+     */
+    private boolean refreshCatalog(String token) throws IOException {
+        File file = new File(getApplicationContext().getFilesDir(), CATALOG_FILE);
+        CatalogSnapshot local = file.exists() ? CatalogSnapshot.open(file) : null;
+
+        byte[] manifest = download(CatalogSnapshot.MANIFEST_NAME, token);
+        long published = manifest == null ? -1 : CatalogSnapshot.parseManifest(manifest);
+        if (local != null && local.version() == published) {
+            return false;
+        }
+
+        if (local != null && published > local.version()
+                && published - local.version() <= MAX_DIFF_CHAIN) {
+            byte[] updated = applyDiffs(local, published, token);
+            if (updated != null) {
+                writeCatalog(file, updated);
+                return true;
+            }
+        }
+
+        byte[] snapshot = download(CatalogSnapshot.SNAPSHOT_NAME, token);
+        if (snapshot == null) {
+            throw new IOException("catalog snapshot missing");
+        }
+        // Parse before writing so a bad download never replaces a good file
+        CatalogSnapshot remote = CatalogSnapshot.wrap(snapshot);
+        if (local != null && local.version() == remote.version()) {
+            return false;
+        }
+        writeCatalog(file, snapshot);
+        return true;
+    }
+
+    /**
+     * Apply the published diffs in order until the catalog reaches the target version
+     * @return the updated snapshot, or null if one of the diffs is missing
+     */
+    private byte[] applyDiffs(CatalogSnapshot local, long target, String token) throws IOException {
+        CatalogSnapshot current = local;
+        byte[] data = null;
+        while (current.version() < target) {
+            byte[] diff = download(CatalogSnapshot.diffName(current.version()), token);
+            if (diff == null) {
+                return null;
+            }
+            data = CatalogSnapshotDiff.apply(current, diff);
+            CatalogSnapshot next = CatalogSnapshot.wrap(data);
+            // A diff that doesn't move forward would loop forever
+            if (next.version() <= current.version()) {
+                throw new IOException("diff " + current.version() + " does not advance the catalog");
+            }
+            current = next;
+        }
+        return data;
+    }
+
+    /**
+     * @return the object from the snapshots bucket, or null if it doesn't exist
+     */
+    private byte[] download(String name, String token) throws IOException {
+        Request request = SupabaseApi.snapshotObject(token, name);
+
+        try (Response response = client.newCall(request).execute()) {
+            if (response.code() == 401) {
+                throw new SessionExpiredException("snapshot request unauthorized");
+            }
+            // Storage answers 400 or 404 for missing objects
+            if (response.code() == 400 || response.code() == 404) {
+                return null;
+            }
+            if (!response.isSuccessful()) {
+                throw new IOException("snapshot HTTP " + response.code());
+            }
+            return response.body().bytes();
+        }
+    }
+
+    // Write to a temp file first so readers never see a half written catalog,
+    // each write gets its own temp name
+    private void writeCatalog(File file, byte[] data) throws IOException {
+        File tmp = File.createTempFile(CATALOG_FILE, ".tmp", file.getParentFile());
+        try {
+            try (FileOutputStream out = new FileOutputStream(tmp)) {
+                out.write(data);
+            }
+            if (!tmp.renameTo(file)) {
+                throw new IOException("could not replace " + CATALOG_FILE);
+            }
+        } finally {
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Push the favorite changes queued by SyncScheduler.queueFavorite
+     * @return how many changes were sent
+     */
+    private int flushFavorites(SharedPreferences sync, String token, String userId) throws IOException {
+        Set<String> add = new HashSet<>(sync.getStringSet(SyncScheduler.KEY_PENDING_FAV_ADD, new HashSet<>()));
+        Set<String> remove = new HashSet<>(sync.getStringSet(SyncScheduler.KEY_PENDING_FAV_REMOVE, new HashSet<>()));
+        int flushed = 0;
+
+        for (String clubId : add) {
+            execute(SupabaseApi.addFavorite(token, userId, clubId));
+            dequeue(SyncScheduler.KEY_PENDING_FAV_ADD, clubId);
+            flushed++;
+        }
+
+        for (String clubId : remove) {
+            execute(SupabaseApi.removeFavorite(token, userId, clubId));
+            dequeue(SyncScheduler.KEY_PENDING_FAV_REMOVE, clubId);
+            flushed++;
+        }
+        return flushed;
+    }
+
+    /**
+     * Drop reminders for clubs that are no longer in the catalog
+     * @return how many reminders are still active
+     */
+    private int recomputeReminders(SharedPreferences sync) throws IOException {
+        Set<String> reminders = new HashSet<>(sync.getStringSet(SyncScheduler.KEY_REMINDERS, new HashSet<>()));
+        File file = new File(getApplicationContext().getFilesDir(), CATALOG_FILE);
+        if (reminders.isEmpty() || !file.exists()) {
+            return reminders.size();
+        }
+
+        CatalogSnapshot catalog = CatalogSnapshot.open(file);
+        Set<String> clubIds = new HashSet<>();
+        for (int i = 0; i < catalog.clubCount(); i++) {
+            clubIds.add(catalog.clubField(i, CatalogSnapshot.FIELD_ID));
+        }
+
+        reminders.retainAll(clubIds);
+        sync.edit().putStringSet(SyncScheduler.KEY_REMINDERS, reminders).apply();
+        return reminders.size();
+    }
+
+    private void execute(Request request) throws IOException {
+        try (Response response = client.newCall(request).execute()) {
+            if (response.code() == 401) {
+                throw new SessionExpiredException("HTTP 401 for " + request.url().encodedPath());
+            }
+            if (!response.isSuccessful()) {
+                throw new IOException("HTTP " + response.code() + " for " + request.url().encodedPath());
+            }
+        }
+    }
+
+    // Remove one sent change so a retry only resends what is left
+    private void dequeue(String key, String clubId) {
+        synchronized (SyncScheduler.class) {
+            SharedPreferences sync = SyncScheduler.prefs(getApplicationContext());
+            Set<String> pending = new HashSet<>(sync.getStringSet(key, new HashSet<>()));
+            pending.remove(clubId);
+            sync.edit().putStringSet(key, pending).apply();
+        }
+    }
+
+    private void recordResult(SharedPreferences sync, String result) {
+        sync.edit()
+                .putLong(SyncScheduler.KEY_LAST_SYNC_AT, System.currentTimeMillis())
+                .putString(SyncScheduler.KEY_LAST_RESULT, result)
+                .apply();
+    }
+
+    // A 401 or a rejected refresh token, failing for good instead of retrying
+    static class SessionExpiredException extends IOException {
+        SessionExpiredException(String message) {
+            super(message);
+        }
+    }
+}
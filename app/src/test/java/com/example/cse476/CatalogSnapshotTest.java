@@ -0,0 +1,120 @@
+package com.example.cse476;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round trips for the catalog snapshot and diff formats.
+ */
+public class CatalogSnapshotTest {
+
+    private static List<CatalogSnapshotWriter.TagRow> tags() {
+        List<CatalogSnapshotWriter.TagRow> tags = new ArrayList<>();
+        tags.add(new CatalogSnapshotWriter.TagRow("t1", "STEM", "stem"));
+        tags.add(new CatalogSnapshotWriter.TagRow("t2", "Arts", "arts"));
+        return tags;
+    }
+
+    private static List<CatalogSnapshotWriter.ClubRow> clubs() {
+        List<CatalogSnapshotWriter.ClubRow> clubs = new ArrayList<>();
+        CatalogSnapshotWriter.ClubRow wic = new CatalogSnapshotWriter.ClubRow("c1", "wic", "Women in Computing");
+        wic.address = "428 S Shaw Ln";
+        wic.tagIds.add("t1");
+        clubs.add(wic);
+        CatalogSnapshotWriter.ClubRow choir = new CatalogSnapshotWriter.ClubRow("c2", "choir", "Choir");
+        choir.tagIds.add("t2");
+        clubs.add(choir);
+        return clubs;
+    }
+
+    @Test
+    public void snapshot_roundTrip() throws Exception {
+        CatalogSnapshot snapshot = CatalogSnapshot.wrap(CatalogSnapshotWriter.toBytes(3, tags(), clubs()));
+
+        assertEquals(3, snapshot.version());
+        assertEquals(2, snapshot.clubCount());
+        assertEquals(2, snapshot.tagCount());
+        // Written sorted by name
+        assertEquals("Choir", snapshot.clubName(0));
+        assertEquals("Women in Computing", snapshot.clubName(1));
+        assertEquals("428 S Shaw Ln", snapshot.clubField(1, CatalogSnapshot.FIELD_ADDRESS));
+        assertNull(snapshot.clubField(0, CatalogSnapshot.FIELD_ADDRESS));
+        assertEquals(0, snapshot.findClubBySlug("choir"));
+        assertEquals(-1, snapshot.findClubBySlug("chess"));
+
+        int stem = snapshot.findTagBySlug("stem");
+        assertEquals("STEM", snapshot.tagName(stem));
+        assertTrue(snapshot.clubHasTag(1, stem));
+        assertFalse(snapshot.clubHasTag(0, stem));
+        assertArrayEquals(new int[]{1}, snapshot.clubsWithTag(stem));
+    }
+
+    @Test
+    public void diff_appliesChanges() throws Exception {
+        CatalogSnapshot v1 = CatalogSnapshot.wrap(CatalogSnapshotWriter.toBytes(1, tags(), clubs()));
+
+        List<CatalogSnapshotWriter.ClubRow> clubs = clubs();
+        clubs.remove(1);
+        clubs.get(0).tagIds.add("t2");
+        CatalogSnapshotWriter.ClubRow chess = new CatalogSnapshotWriter.ClubRow("c3", "chess", "Chess Club");
+        clubs.add(chess);
+
+        byte[] diff = CatalogSnapshotDiff.compute(v1, 2, tags(), clubs);
+        CatalogSnapshot v2 = CatalogSnapshot.wrap(CatalogSnapshotDiff.apply(v1, diff));
+
+        assertEquals(2, v2.version());
+        assertEquals(2, v2.clubCount());
+        assertEquals(-1, v2.findClubBySlug("choir"));
+        assertEquals("Chess Club", v2.clubName(v2.findClubBySlug("chess")));
+        assertEquals(new HashSet<>(Arrays.asList("t1", "t2")),
+                new HashSet<>(v2.clubRows().get(v2.findClubBySlug("wic")).tagIds));
+    }
+
+    @Test
+    public void diff_rebuildsTheExportedSnapshot() throws Exception {
+        List<CatalogSnapshotWriter.ClubRow> before = new ArrayList<>();
+        before.add(new CatalogSnapshotWriter.ClubRow("c1", "bowling", "Bowling"));
+        before.add(new CatalogSnapshotWriter.ClubRow("c2", "chess", "Chess"));
+        before.get(1).tagIds.add("t1");
+        CatalogSnapshot v1 = CatalogSnapshot.wrap(CatalogSnapshotWriter.toBytes(1, tags(), before));
+
+        // Added club sorts first, a rename moves a club, a new tag sorts between the old ones
+        List<CatalogSnapshotWriter.TagRow> tags = tags();
+        tags.add(new CatalogSnapshotWriter.TagRow("t3", "Games", "games"));
+        List<CatalogSnapshotWriter.ClubRow> after = new ArrayList<>();
+        after.add(new CatalogSnapshotWriter.ClubRow("c1", "bowling", "Bowling"));
+        after.add(new CatalogSnapshotWriter.ClubRow("c2", "chess", "Academic Chess"));
+        after.get(1).tagIds.add("t3");
+        after.get(1).tagIds.add("t1");
+        after.add(new CatalogSnapshotWriter.ClubRow("c3", "archery", "Archery"));
+
+        byte[] exported = CatalogSnapshotWriter.toBytes(2, tags, after);
+        byte[] applied = CatalogSnapshotDiff.apply(v1, CatalogSnapshotDiff.compute(v1, 2, tags, after));
+
+        assertArrayEquals(exported, applied);
+        CatalogSnapshot v2 = CatalogSnapshot.wrap(applied);
+        assertEquals("Academic Chess", v2.clubName(0));
+        assertEquals("Archery", v2.clubName(1));
+        assertEquals("Bowling", v2.clubName(2));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void snapshot_rejectsTagOutOfRange() throws Exception {
+        CatalogSnapshot snapshot = CatalogSnapshot.wrap(CatalogSnapshotWriter.toBytes(1, tags(), clubs()));
+        // Bit 8 would land in the next club's record, there are only 2 tags
+        snapshot.clubHasTag(0, 8);
+    }
+
+    @Test(expected = java.io.IOException.class)
+    public void diff_rejectsWrongBaseVersion() throws Exception {
+        CatalogSnapshot v1 = CatalogSnapshot.wrap(CatalogSnapshotWriter.toBytes(1, tags(), clubs()));
+        CatalogSnapshot v5 = CatalogSnapshot.wrap(CatalogSnapshotWriter.toBytes(5, tags(), clubs()));
+        CatalogSnapshotDiff.apply(v5, CatalogSnapshotDiff.compute(v1, 2, tags(), clubs()));
+    }
+}
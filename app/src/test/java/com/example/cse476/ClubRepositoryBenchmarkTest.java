@@ -0,0 +1,115 @@
+package com.example.cse476;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the heap used by ClubRepository with a naive object per club
+ * model, shaped like what parsing the PostgREST JSON gives you: one map per
+ * club and its own copy of every tag string. Both sides are estimated from
+ * their sizes with the same JVM layout (ClubRepository.footprintBytes), so
+ * the numbers don't depend on the GC or on other tests running.
+ */
+public class ClubRepositoryBenchmarkTest {
+    private static final int CLUBS = 5000;
+    private static final int TAGS = 300;
+    private static final int TAGS_PER_CLUB = 4;
+
+    private static String clubId(int c) {
+        return String.format("00000000-0000-4000-8000-%012d", c);
+    }
+
+    private static String tagName(int c, int i) {
+        return "tag-" + ((c * 7 + i * 31) % TAGS);
+    }
+
+    private static List<Map<String, Object>> buildNaive() {
+        List<Map<String, Object>> clubs = new ArrayList<>();
+        for (int c = 0; c < CLUBS; c++) {
+            Map<String, Object> club = new HashMap<>();
+            club.put("id", clubId(c));
+            club.put("slug", "club-" + c);
+            club.put("name", "Club number " + c);
+            club.put("address", c + " Farm Lane, East Lansing");
+            List<String> tags = new ArrayList<>();
+            for (int i = 0; i < TAGS_PER_CLUB; i++) {
+                // new String() because a JSON parser gives every row its own copy
+                tags.add(new String(tagName(c, i)));
+            }
+            club.put("tags", tags);
+            clubs.add(club);
+        }
+        return clubs;
+    }
+
+    private static ClubRepository buildCompact() {
+        ClubRepository.Builder builder = new ClubRepository.Builder();
+        for (int c = 0; c < CLUBS; c++) {
+            String[] tags = new String[TAGS_PER_CLUB];
+            for (int i = 0; i < TAGS_PER_CLUB; i++) {
+                tags[i] = new String(tagName(c, i));
+            }
+            builder.addClub(clubId(c), "club-" + c, "Club number " + c, c + " Farm Lane, East Lansing", tags);
+        }
+        return builder.build();
+    }
+
+    // Same layout rules as ClubRepository.footprintBytes, applied to buildNaive()
+    private static long naiveFootprint(List<Map<String, Object>> clubs) {
+        long bytes = ClubRepository.objectBytes(ClubRepository.REFERENCE + 8)
+                + ClubRepository.arrayBytes(clubs.size(), ClubRepository.REFERENCE);
+        for (Map<String, Object> club : clubs) {
+            // The keys are literals shared by every map, only the values count
+            bytes += ClubRepository.hashMapBytes(club.size());
+            for (Object value : club.values()) {
+                if (value instanceof String) {
+                    bytes += ClubRepository.stringBytes((String) value);
+                }
+            }
+            @SuppressWarnings("unchecked")
+            List<String> tags = (List<String>) club.get("tags");
+            bytes += ClubRepository.objectBytes(ClubRepository.REFERENCE + 8)
+                    + ClubRepository.arrayBytes(10, ClubRepository.REFERENCE);
+            for (String tag : tags) {
+                bytes += ClubRepository.stringBytes(tag);
+            }
+        }
+        return bytes;
+    }
+
+    @Test
+    public void repository_readsBackClubs() {
+        ClubRepository repository = buildCompact();
+
+        assertEquals(CLUBS, repository.size());
+        assertEquals(TAGS, repository.tags().size());
+        ClubRepository.Club club = repository.findById(clubId(42));
+        assertNotNull(club);
+        assertEquals("Club number 42", club.name());
+        assertEquals("club-42", club.slug());
+        assertEquals(TAGS_PER_CLUB, club.tagCount());
+        assertTrue(club.hasTag(repository.tags().idOf(tagName(42, 0))));
+        assertNull(repository.findById("missing"));
+
+        for (int c : repository.clubsWithTag(tagName(42, 1))) {
+            assertTrue(repository.get(c).hasTag(repository.tags().idOf(tagName(42, 1))));
+        }
+    }
+
+    @Test
+    public void repository_usesLessHeapThanNaiveModel() {
+        long naiveBytes = naiveFootprint(buildNaive());
+        long compactBytes = buildCompact().footprintBytes();
+
+        System.out.println("naive model: " + naiveBytes / 1024 + " KB, ClubRepository: "
+                + compactBytes / 1024 + " KB for " + CLUBS + " clubs");
+        assertTrue("repository should be at most a third of the naive footprint",
+                compactBytes * 3 < naiveBytes);
+    }
+}
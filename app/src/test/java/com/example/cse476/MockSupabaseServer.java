@@ -0,0 +1,359 @@
+package com.example.cse476;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Local stand-in for the Supabase project, built on MockWebServer. It serves
+ * the /auth/v1 and /rest/v1 endpoints the app calls, backed by in-memory
+ * tables shaped like backend/sql/create_tables.sql (plus the profiles table
+ * the app reads). Latency and failures can be injected for load tests.
+ *
+ * Usage: start(), then Config.setBaseUrl(server.url()).
+ */
+public class MockSupabaseServer {
+    private static final Gson GSON = new Gson();
+
+    // users: id -> {id, email, password}
+    private final Map<String, Map<String, String>> users = new ConcurrentHashMap<>();
+    private final Map<String, String> userIdsByEmail = new ConcurrentHashMap<>();
+    private final Map<String, String> userIdsByToken = new ConcurrentHashMap<>();
+    private final Map<String, String> userIdsByRefreshToken = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, String>> profiles = new ConcurrentHashMap<>();
+    // clubs in insertion order, guarded by itself
+    private final Map<String, Map<String, Object>> clubs = new LinkedHashMap<>();
+    // favorites: user id -> club ids
+    private final Map<String, List<String>> favorites = new ConcurrentHashMap<>();
+
+    private final MockWebServer server = new MockWebServer();
+    private final Random random = new Random(476);
+    private final AtomicLong requestCount = new AtomicLong();
+    private volatile long latencyMillis;
+    private volatile double errorRate;
+
+    public MockSupabaseServer() {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                requestCount.incrementAndGet();
+                MockResponse response = route(request);
+                if (latencyMillis > 0) {
+                    response.setHeadersDelay(latencyMillis, TimeUnit.MILLISECONDS);
+                }
+                return response;
+            }
+        });
+    }
+
+    public void start() throws IOException {
+        server.start();
+    }
+
+    public void shutdown() throws IOException {
+        server.shutdown();
+    }
+
+    /**
+     * @return base url to pass to Config.setBaseUrl
+     */
+    public String url() {
+        return server.url("/").toString();
+    }
+
+    /**
+     * Delay every response by this much, like the round trip to the real server
+     */
+    public void setLatency(long millis) {
+        latencyMillis = millis;
+    }
+
+    /**
+     * Answer this fraction of requests (0 to 1) with a 503
+     */
+    public void setErrorRate(double rate) {
+        errorRate = rate;
+    }
+
+    /**
+     * Forget every access token, like an hour passing on the real server.
+     * Refresh tokens keep working.
+     */
+    public void expireAccessTokens() {
+        userIdsByToken.clear();
+    }
+
+    public long requestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Add a row to the clubs table
+     * @param tagNames - tags of the club, embedded the way club_tags(tags(name)) returns them
+     */
+    public void addClub(String id, String slug, String name, String address, String... tagNames) {
+        Map<String, Object> club = new LinkedHashMap<>();
+        club.put("id", id);
+        club.put("slug", slug);
+        club.put("name", name);
+        club.put("address", address);
+        club.put("description", "About " + name);
+        List<Object> clubTags = new ArrayList<>();
+        for (String tagName : tagNames) {
+            Map<String, Object> tag = new HashMap<>();
+            tag.put("name", tagName);
+            Map<String, Object> clubTag = new HashMap<>();
+            clubTag.put("tags", tag);
+            clubTags.add(clubTag);
+        }
+        club.put("club_tags", clubTags);
+        synchronized (clubs) {
+            clubs.put(id, club);
+        }
+    }
+
+    private MockResponse route(RecordedRequest request) {
+        if (request.getHeader("apikey") == null) {
+            return json(401, "{\"message\":\"No API key found in request\"}");
+        }
+        boolean fail;
+        synchronized (random) {
+            fail = errorRate > 0 && random.nextDouble() < errorRate;
+        }
+        if (fail) {
+            return json(503, "{\"message\":\"injected failure\"}");
+        }
+
+        HttpUrl url = request.getRequestUrl();
+        String method = request.getMethod();
+        String path = url.encodedPath();
+
+        if (path.equals("/auth/v1/health")) {
+            return new MockResponse().setResponseCode(200);
+        }
+        if (path.equals("/auth/v1/signup") && method.equals("POST")) {
+            return signup(request);
+        }
+        if (path.equals("/auth/v1/token") && method.equals("POST")) {
+            return token(request);
+        }
+
+        // Everything below needs a valid access token
+        String userId = userIdsByToken.get(bearer(request));
+        if (userId == null) {
+            return json(401, "{\"msg\":\"Invalid JWT\"}");
+        }
+
+        if (path.equals("/auth/v1/user") && method.equals("DELETE")) {
+            return deleteUser(userId);
+        }
+        if (path.equals("/rest/v1/profiles")) {
+            return profiles(request, url, userId);
+        }
+        if (path.equals("/rest/v1/favorites")) {
+            return favorites(request, url, userId);
+        }
+        if (path.equals("/rest/v1/clubs") && method.equals("GET")) {
+            return clubs(url);
+        }
+        return json(404, "{\"message\":\"not found\"}");
+    }
+
+    private MockResponse signup(RecordedRequest request) {
+        JsonObject body = GSON.fromJson(request.getBody().readUtf8(), JsonObject.class);
+        String email = body.get("email").getAsString();
+        String id = UUID.randomUUID().toString();
+        if (userIdsByEmail.putIfAbsent(email, id) != null) {
+            return json(422, "{\"msg\":\"User already registered\"}");
+        }
+        Map<String, String> user = new HashMap<>();
+        user.put("id", id);
+        user.put("email", email);
+        user.put("password", body.get("password").getAsString());
+        users.put(id, user);
+
+        // Supabase creates the profiles row with a trigger
+        Map<String, String> profile = new HashMap<>();
+        profile.put("id", id);
+        profile.put("email", email);
+        profiles.put(id, profile);
+        return json(200, GSON.toJson(publicUser(user)));
+    }
+
+    private MockResponse token(RecordedRequest request) {
+        JsonObject body = GSON.fromJson(request.getBody().readUtf8(), JsonObject.class);
+        String id;
+        if ("refresh_token".equals(request.getRequestUrl().queryParameter("grant_type"))) {
+            // Refresh tokens only work once, like Supabase's rotation
+            id = userIdsByRefreshToken.remove(body.get("refresh_token").getAsString());
+            if (id == null || !users.containsKey(id)) {
+                return json(400, "{\"error\":\"invalid_grant\",\"msg\":\"Invalid Refresh Token\"}");
+            }
+        } else {
+            id = userIdsByEmail.get(body.get("email").getAsString());
+            Map<String, String> user = id == null ? null : users.get(id);
+            if (user == null || !user.get("password").equals(body.get("password").getAsString())) {
+                return json(400, "{\"error\":\"invalid_grant\",\"msg\":\"Invalid login credentials\"}");
+            }
+        }
+        String token = "mock-" + UUID.randomUUID();
+        String refreshToken = "refresh-" + UUID.randomUUID();
+        userIdsByToken.put(token, id);
+        userIdsByRefreshToken.put(refreshToken, id);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("access_token", token);
+        result.put("refresh_token", refreshToken);
+        result.put("token_type", "bearer");
+        result.put("user", publicUser(users.get(id)));
+        return json(200, GSON.toJson(result));
+    }
+
+    private MockResponse deleteUser(String userId) {
+        Map<String, String> user = users.remove(userId);
+        if (user != null) {
+            userIdsByEmail.remove(user.get("email"));
+        }
+        profiles.remove(userId);
+        favorites.remove(userId);
+        userIdsByToken.values().removeIf(userId::equals);
+        userIdsByRefreshToken.values().removeIf(userId::equals);
+        return json(200, "{}");
+    }
+
+    private MockResponse profiles(RecordedRequest request, HttpUrl url, String userId) {
+        String id = eq(url, "id");
+        // Row level security: users only see their own profile
+        if (!userId.equals(id)) {
+            return json(200, "[]");
+        }
+        switch (request.getMethod()) {
+            case "GET": {
+                Map<String, String> profile = profiles.get(id);
+                List<Object> rows = new ArrayList<>();
+                if (profile != null) {
+                    rows.add(profile);
+                }
+                return json(200, GSON.toJson(rows));
+            }
+            case "PATCH": {
+                Map<String, String> profile = profiles.get(id);
+                if (profile != null) {
+                    JsonObject body = GSON.fromJson(request.getBody().readUtf8(), JsonObject.class);
+                    for (String column : body.keySet()) {
+                        profile.put(column, body.get(column).getAsString());
+                    }
+                }
+                return new MockResponse().setResponseCode(204);
+            }
+            case "DELETE":
+                profiles.remove(id);
+                return new MockResponse().setResponseCode(204);
+            default:
+                return json(405, "{}");
+        }
+    }
+
+    private MockResponse favorites(RecordedRequest request, HttpUrl url, String userId) {
+        List<String> clubIds = favorites.computeIfAbsent(userId, k -> new ArrayList<>());
+        synchronized (clubIds) {
+            switch (request.getMethod()) {
+                case "GET": {
+                    List<Object> rows = new ArrayList<>();
+                    for (String clubId : clubIds) {
+                        Map<String, String> row = new HashMap<>();
+                        row.put("club_id", clubId);
+                        rows.add(row);
+                    }
+                    return json(200, GSON.toJson(rows));
+                }
+                case "POST": {
+                    JsonObject body = GSON.fromJson(request.getBody().readUtf8(), JsonObject.class);
+                    String clubId = body.get("club_id").getAsString();
+                    if (!clubIds.contains(clubId)) {
+                        clubIds.add(clubId);
+                    }
+                    return new MockResponse().setResponseCode(201);
+                }
+                case "DELETE":
+                    clubIds.remove(eq(url, "club_id"));
+                    return new MockResponse().setResponseCode(204);
+                default:
+                    return json(405, "{}");
+            }
+        }
+    }
+
+    private MockResponse clubs(HttpUrl url) {
+        String id = eq(url, "id");
+        int offset = url.queryParameter("offset") == null ? 0 : Integer.parseInt(url.queryParameter("offset"));
+        int limit = url.queryParameter("limit") == null ? Integer.MAX_VALUE : Integer.parseInt(url.queryParameter("limit"));
+
+        List<Map<String, Object>> table;
+        synchronized (clubs) {
+            table = new ArrayList<>(clubs.values());
+        }
+        // PostgREST "order=column", ascending; only the columns the app sorts by
+        String order = url.queryParameter("order");
+        if (order != null) {
+            if (!order.equals("name")) {
+                return json(400, "{\"message\":\"mock only orders by name\"}");
+            }
+            table.sort((a, b) -> String.CASE_INSENSITIVE_ORDER.compare((String) a.get("name"), (String) b.get("name")));
+        }
+
+        List<Object> rows = new ArrayList<>();
+        int index = 0;
+        for (Map<String, Object> club : table) {
+            if (id != null && !id.equals(club.get("id"))) {
+                continue;
+            }
+            if (index++ >= offset && rows.size() < limit) {
+                rows.add(club);
+            }
+        }
+        return json(200, GSON.toJson(rows));
+    }
+
+    private static Map<String, String> publicUser(Map<String, String> user) {
+        Map<String, String> result = new HashMap<>();
+        result.put("id", user.get("id"));
+        result.put("email", user.get("email"));
+        return result;
+    }
+
+    // Value of a PostgREST "column=eq.value" filter
+    private static String eq(HttpUrl url, String column) {
+        String value = url.queryParameter(column);
+        return value != null && value.startsWith("eq.") ? value.substring(3) : null;
+    }
+
+    private static String bearer(RecordedRequest request) {
+        String header = request.getHeader("Authorization");
+        return header != null && header.startsWith("Bearer ") ? header.substring(7) : "";
+    }
+
+    private static MockResponse json(int code, String body) {
+        return new MockResponse()
+                .setResponseCode(code)
+                .setHeader("Content-Type", "application/json")
+                .setBody(body);
+    }
+}
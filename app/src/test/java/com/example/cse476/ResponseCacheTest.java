@@ -0,0 +1,226 @@
+package com.example.cse476;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * ResponseCache and DiskCache with executors that run inline, so every
+ * callback has happened by the time get() returns.
+ */
+public class ResponseCacheTest {
+
+    // Records every callback as "value/stale" or "error"
+    private static class Recorder implements ResponseCache.Callback {
+        final List<String> calls = new ArrayList<>();
+
+        @Override
+        public void onValue(String value, boolean stale) {
+            calls.add(value + (stale ? "/stale" : "/fresh"));
+        }
+
+        @Override
+        public void onError(IOException e) {
+            calls.add("error");
+        }
+    }
+
+    // Deleted after every test
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File tempDir() throws IOException {
+        return folder.newFolder();
+    }
+
+    private static ResponseCache cache(File dir) throws IOException {
+        return new ResponseCache(new DiskCache(dir, 1024 * 1024), 8, Runnable::run, Runnable::run);
+    }
+
+    @Test
+    public void missLoadsThenHitsMemory() throws Exception {
+        ResponseCache cache = cache(tempDir());
+        int[] loads = {0};
+        ResponseCache.Loader loader = key -> "profile-" + (++loads[0]);
+
+        Recorder first = new Recorder();
+        cache.get(CacheKey.profile("u1"), loader, first);
+        Recorder second = new Recorder();
+        cache.get(CacheKey.profile("u1"), loader, second);
+
+        assertEquals("[profile-1/fresh]", first.calls.toString());
+        assertEquals("[profile-1/fresh]", second.calls.toString());
+        assertEquals(1, loads[0]);
+        assertEquals(1, cache.stats().misses);
+        assertEquals(1, cache.stats().hits);
+    }
+
+    @Test
+    public void staleDiskEntryIsServedThenRefreshed() throws Exception {
+        File dir = tempDir();
+        CacheKey key = CacheKey.club("c1");
+        DiskCache disk = new DiskCache(dir, 1024 * 1024);
+        disk.put(key.diskName(), "old", System.currentTimeMillis() - 2 * key.resource.ttlMillis);
+
+        // A new cache instance only knows the entry through the journal
+        ResponseCache cache = cache(dir);
+        Recorder recorder = new Recorder();
+        cache.get(key, k -> "new", recorder);
+
+        assertEquals("[old/stale, new/fresh]", recorder.calls.toString());
+        assertEquals(1, cache.stats().staleHits);
+    }
+
+    @Test
+    public void failedRefreshKeepsStaleValue() throws Exception {
+        File dir = tempDir();
+        CacheKey key = CacheKey.club("c2");
+        new DiskCache(dir, 1024 * 1024).put(key.diskName(), "old", 0);
+
+        ResponseCache cache = cache(dir);
+        Recorder recorder = new Recorder();
+        cache.get(key, k -> {
+            throw new IOException("offline");
+        }, recorder);
+
+        assertEquals("[old/stale]", recorder.calls.toString());
+        assertEquals(1, cache.stats().loadFailures);
+    }
+
+    @Test
+    public void diskEvictsLeastRecentlyUsed() throws Exception {
+        File dir = tempDir();
+        DiskCache disk = new DiskCache(dir, 10);
+        disk.put("a", "12345", 1);
+        disk.put("b", "12345", 1);
+        disk.get("a");
+        disk.put("c", "12345", 1);
+
+        DiskCache reopened = new DiskCache(dir, 10);
+        assertNotNull(reopened.get("a"));
+        assertNull(reopened.get("b"));
+        assertEquals("12345", reopened.get("c").value);
+    }
+
+    @Test
+    public void clearDeletesDiskEntries() throws Exception {
+        File dir = tempDir();
+        ResponseCache cache = cache(dir);
+        cache.put(CacheKey.profile("u1"), "{\"email\":\"sparty@msu.edu\"}");
+        cache.clear();
+
+        assertNull(new DiskCache(dir, 1024 * 1024).get(CacheKey.profile("u1").diskName()));
+        Recorder recorder = new Recorder();
+        cache.get(CacheKey.profile("u1"), key -> "reloaded", recorder);
+        assertEquals("[reloaded/fresh]", recorder.calls.toString());
+    }
+
+    // A real two thread pool like ResponseCache.get uses, that can wait until
+    // every queued task (including ones queued by other tasks) has finished
+    private static class TwoThreadExecutor implements Executor {
+        private final ExecutorService pool = Executors.newFixedThreadPool(2);
+        private int pending;
+
+        @Override
+        public void execute(Runnable task) {
+            synchronized (this) {
+                pending++;
+            }
+            pool.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    synchronized (this) {
+                        pending--;
+                        notifyAll();
+                    }
+                }
+            });
+        }
+
+        synchronized void awaitIdle() throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (pending > 0 && System.currentTimeMillis() < deadline) {
+                wait(100);
+            }
+            assertEquals(0, pending);
+        }
+
+        void shutdown() {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void clearWinsOverPendingWritesOnRealExecutor() throws Exception {
+        CacheKey key = CacheKey.profile("u1");
+        for (int i = 0; i < 200; i++) {
+            File dir = tempDir();
+            TwoThreadExecutor background = new TwoThreadExecutor();
+            ResponseCache cache = new ResponseCache(new DiskCache(dir, 1024 * 1024), 8, background, Runnable::run);
+            cache.put(key, "{\"email\":\"sparty@msu.edu\"}");
+            cache.clear();
+            background.awaitIdle();
+            background.shutdown();
+
+            assertNull("run " + i, new DiskCache(dir, 1024 * 1024).get(key.diskName()));
+        }
+    }
+
+    @Test
+    public void refreshFinishingAfterClearIsNotCached() throws Exception {
+        File dir = tempDir();
+        TwoThreadExecutor background = new TwoThreadExecutor();
+        ResponseCache cache = new ResponseCache(new DiskCache(dir, 1024 * 1024), 8, background, Runnable::run);
+        CacheKey key = CacheKey.profile("u1");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Recorder recorder = new Recorder();
+        cache.get(key, k -> {
+            loading.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return "deleted user";
+        }, recorder);
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+        cache.clear();
+        release.countDown();
+        background.awaitIdle();
+
+        // The caller still got its answer, but neither tier kept it
+        assertEquals("[deleted user/fresh]", recorder.calls.toString());
+        assertNull(new DiskCache(dir, 1024 * 1024).get(key.diskName()));
+        Recorder after = new Recorder();
+        cache.get(key, k -> "reloaded", after);
+        background.awaitIdle();
+        background.shutdown();
+        assertEquals("[reloaded/fresh]", after.calls.toString());
+    }
+
+    @Test
+    public void tagKeysIgnoreOrder() {
+        List<String> ab = new ArrayList<>();
+        ab.add("a");
+        ab.add("b");
+        List<String> ba = new ArrayList<>();
+        ba.add("b");
+        ba.add("a");
+        assertEquals(CacheKey.tags(ab), CacheKey.tags(ba));
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.cse476;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the app's Supabase requests against MockSupabaseServer: the signup,
+ * login, profile and delete flows, error injection and a small load test.
+ */
+public class SupabaseFlowsTest {
+    private static final Gson GSON = new Gson();
+
+    private final OkHttpClient client = new OkHttpClient();
+    private MockSupabaseServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockSupabaseServer();
+        server.addClub("club-1", "wic", "Women in Computing", "STEM Building", "STEM");
+        server.addClub("club-2", "chess", "Chess Club", "Union", "Games");
+        server.start();
+        Config.setBaseUrl(server.url());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Config.setBaseUrl(null);
+        server.shutdown();
+    }
+
+    private Response call(Request request) throws Exception {
+        return client.newCall(request).execute();
+    }
+
+    private JsonObject login(String email, String password) throws Exception {
+        try (Response response = call(SupabaseApi.passwordGrant(email, password))) {
+            assertEquals(200, response.code());
+            return GSON.fromJson(response.body().string(), JsonObject.class);
+        }
+    }
+
+    @Test
+    public void signupLoginAndEditProfile() throws Exception {
+        try (Response response = call(SupabaseApi.signup("sparty@msu.edu", "go-green"))) {
+            assertEquals(200, response.code());
+        }
+        JsonObject session = login("sparty@msu.edu", "go-green");
+        String token = session.get("access_token").getAsString();
+        String userId = session.getAsJsonObject("user").get("id").getAsString();
+
+        try (Response response = call(SupabaseApi.updateProfile(token, userId, "{\"major\":\"CSE\"}"))) {
+            assertTrue(response.isSuccessful());
+        }
+        try (Response response = call(SupabaseApi.profile(token, userId))) {
+            JsonArray rows = GSON.fromJson(response.body().string(), JsonArray.class);
+            assertEquals(1, rows.size());
+            assertEquals("CSE", rows.get(0).getAsJsonObject().get("major").getAsString());
+        }
+    }
+
+    @Test
+    public void wrongPasswordIsRejected() throws Exception {
+        call(SupabaseApi.signup("a@msu.edu", "right")).close();
+        try (Response response = call(SupabaseApi.passwordGrant("a@msu.edu", "wrong"))) {
+            assertEquals(400, response.code());
+            JsonObject body = GSON.fromJson(response.body().string(), JsonObject.class);
+            assertEquals("Invalid login credentials", body.get("msg").getAsString());
+        }
+    }
+
+    @Test
+    public void deleteAccountRevokesToken() throws Exception {
+        call(SupabaseApi.signup("b@msu.edu", "pw")).close();
+        JsonObject session = login("b@msu.edu", "pw");
+        String token = session.get("access_token").getAsString();
+        String userId = session.getAsJsonObject("user").get("id").getAsString();
+
+        try (Response response = call(SupabaseApi.deleteUser(token))) {
+            assertEquals(200, response.code());
+        }
+        try (Response response = call(SupabaseApi.profile(token, userId))) {
+            assertEquals(401, response.code());
+        }
+    }
+
+    @Test
+    public void refreshTokenReplacesExpiredAccessToken() throws Exception {
+        call(SupabaseApi.signup("e@msu.edu", "pw")).close();
+        JsonObject session = login("e@msu.edu", "pw");
+        String userId = session.getAsJsonObject("user").get("id").getAsString();
+        String refreshToken = session.get("refresh_token").getAsString();
+
+        server.expireAccessTokens();
+        try (Response response = call(SupabaseApi.profile(session.get("access_token").getAsString(), userId))) {
+            assertEquals(401, response.code());
+        }
+
+        String token;
+        try (Response response = call(SupabaseApi.refreshGrant(refreshToken))) {
+            assertEquals(200, response.code());
+            token = GSON.fromJson(response.body().string(), JsonObject.class).get("access_token").getAsString();
+        }
+        try (Response response = call(SupabaseApi.profile(token, userId))) {
+            assertEquals(200, response.code());
+        }
+
+        // A used refresh token is rejected, SyncWorker gives up instead of retrying
+        try (Response response = call(SupabaseApi.refreshGrant(refreshToken))) {
+            assertEquals(400, response.code());
+        }
+    }
+
+    @Test
+    public void favoritesAndCatalogPages() throws Exception {
+        call(SupabaseApi.signup("c@msu.edu", "pw")).close();
+        JsonObject session = login("c@msu.edu", "pw");
+        String token = session.get("access_token").getAsString();
+        String userId = session.getAsJsonObject("user").get("id").getAsString();
+
+        call(SupabaseApi.addFavorite(token, userId, "club-2")).close();
+        try (Response response = call(SupabaseApi.favorites(token, userId))) {
+            JsonArray rows = GSON.fromJson(response.body().string(), JsonArray.class);
+            assertEquals("club-2", rows.get(0).getAsJsonObject().get("club_id").getAsString());
+        }
+        try (Response response = call(SupabaseApi.clubsPage(token, 1, 1))) {
+            JsonArray rows = GSON.fromJson(response.body().string(), JsonArray.class);
+            assertEquals(1, rows.size());
+            // Ordered by name: "Chess Club" is first, so offset 1 is Women in Computing
+            JsonObject club = rows.get(0).getAsJsonObject();
+            assertEquals("wic", club.get("slug").getAsString());
+            // Tags come by name, like in the catalog snapshot
+            assertEquals("STEM", club.getAsJsonArray("club_tags").get(0).getAsJsonObject()
+                    .getAsJsonObject("tags").get("name").getAsString());
+        }
+    }
+
+    @Test
+    public void injectedErrorsAreReported() throws Exception {
+        server.setErrorRate(1.0);
+        try (Response response = call(SupabaseApi.signup("d@msu.edu", "pw"))) {
+            assertEquals(503, response.code());
+        }
+    }
+
+    @Test
+    public void loadTestReportsThroughputAndP99() throws Exception {
+        server.setLatency(5);
+        SupabaseLoadDriver.Result result = new SupabaseLoadDriver(16, 3).run();
+        System.out.println("load test: " + result);
+
+        // 8 requests per scenario, 16 clients, 3 runs each
+        assertEquals(16 * 3 * 8, result.requests);
+        assertEquals(0, result.errors);
+        assertTrue(result.throughput > 0);
+        assertTrue(result.p99Millis >= result.p50Millis);
+        assertTrue(result.p50Millis >= 5);
+    }
+}
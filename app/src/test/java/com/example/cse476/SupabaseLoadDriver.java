@@ -0,0 +1,158 @@
+package com.example.cse476;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Simulates many app installs hitting Supabase at once. Each client walks
+ * through the app's real requests (built by SupabaseApi against
+ * Config.baseUrl()): signup, login, load profile, save profile, add a
+ * favorite, load favorites, load the first catalog page and delete the
+ * account. Reports throughput and latency percentiles over all requests.
+ */
+public class SupabaseLoadDriver {
+    private static final Gson GSON = new Gson();
+
+    /** Outcome of a run */
+    public static class Result {
+        public int requests;
+        public int errors;
+        public long elapsedMillis;
+        public double throughput;
+        public double p50Millis;
+        public double p99Millis;
+
+        @Override
+        public String toString() {
+            return String.format("%d requests, %d errors in %d ms: %.1f req/s, p50 %.1f ms, p99 %.1f ms",
+                    requests, errors, elapsedMillis, throughput, p50Millis, p99Millis);
+        }
+    }
+
+    private final OkHttpClient client;
+    private final int clients;
+    private final int iterations;
+    private final List<Long> latenciesNanos = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger errors = new AtomicInteger();
+    private final AtomicInteger userCounter = new AtomicInteger();
+
+    /**
+     * @param clients - how many simulated phones run at the same time
+     * @param iterations - how many times each phone runs the scenario
+     */
+    public SupabaseLoadDriver(int clients, int iterations) {
+        this.clients = clients;
+        this.iterations = iterations;
+        // One client for everyone, sized so the phones don't queue behind each other
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(clients);
+        dispatcher.setMaxRequestsPerHost(clients);
+        this.client = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(clients, 1, TimeUnit.MINUTES))
+                .build();
+    }
+
+    public Result run() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < iterations; i++) {
+                    scenario();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        List<Long> sorted;
+        synchronized (latenciesNanos) {
+            sorted = new ArrayList<>(latenciesNanos);
+        }
+        Collections.sort(sorted);
+
+        Result result = new Result();
+        result.requests = sorted.size();
+        result.errors = errors.get();
+        result.elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsed);
+        result.throughput = sorted.size() / (elapsed / 1e9);
+        result.p50Millis = percentile(sorted, 0.50) / 1e6;
+        result.p99Millis = percentile(sorted, 0.99) / 1e6;
+        return result;
+    }
+
+    // One phone: the flows from SignUpActivity, LoginActivity/LoginBootstrap,
+    // ProfileActivity, SyncWorker and ClubsActivity in order
+    private void scenario() {
+        String email = "load" + userCounter.incrementAndGet() + "@msu.edu";
+        String password = "hunter22";
+
+        if (call(SupabaseApi.signup(email, password)) == null) {
+            return;
+        }
+        String login = call(SupabaseApi.passwordGrant(email, password));
+        if (login == null) {
+            return;
+        }
+        JsonObject json = GSON.fromJson(login, JsonObject.class);
+        String token = json.get("access_token").getAsString();
+        String userId = json.getAsJsonObject("user").get("id").getAsString();
+
+        call(SupabaseApi.profile(token, userId));
+        call(SupabaseApi.updateProfile(token, userId, "{\"name\":\"Sparty\",\"major\":\"CSE\"}"));
+        call(SupabaseApi.addFavorite(token, userId, "club-1"));
+        call(SupabaseApi.favorites(token, userId));
+        call(SupabaseApi.clubsPage(token, 0, LoginBootstrap.FIRST_PAGE_SIZE));
+        call(SupabaseApi.deleteUser(token));
+    }
+
+    /**
+     * @return the body, or null if the request failed
+     */
+    private String call(Request request) {
+        long start = System.nanoTime();
+        try (Response response = client.newCall(request).execute()) {
+            String body = response.body().string();
+            latenciesNanos.add(System.nanoTime() - start);
+            if (!response.isSuccessful()) {
+                errors.incrementAndGet();
+                return null;
+            }
+            return body;
+        } catch (IOException e) {
+            latenciesNanos.add(System.nanoTime() - start);
+            errors.incrementAndGet();
+            return null;
+        }
+    }
+
+    private static double percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+}
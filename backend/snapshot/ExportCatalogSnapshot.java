@@ -0,0 +1,176 @@
+import com.example.cse476.CatalogSnapshot;
+import com.example.cse476.CatalogSnapshotDiff;
+import com.example.cse476.CatalogSnapshotWriter;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exports clubs + tags + club_tags into the binary catalog snapshot the app
+ * downloads, a diff from the previously exported version and the manifest
+ * with the new version number.
+ *
+ * The snapshot classes live in the app module so both sides share one format:
+ *
+ *   javac -d build/snapshot \
+ *       app/src/main/java/com/example/cse476/CatalogSnapshot*.java \
+ *       backend/snapshot/ExportCatalogSnapshot.java
+ *   java -cp build/snapshot:postgresql.jar ExportCatalogSnapshot \
+ *       jdbc:postgresql://host:5432/postgres user password \
+ *       https://<project>.supabase.co/storage/v1/object/public/snapshots/ out/
+ *
+ * The previous version is read from the bucket, not from out/, so every
+ * export continues the published version sequence wherever it runs.
+ *
+ * Upload everything in out/ to the public "snapshots" storage bucket, with
+ * catalog.version last so phones never see a version whose files aren't there.
+ */
+public class ExportCatalogSnapshot {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 5) {
+            System.err.println("usage: ExportCatalogSnapshot <jdbc url> <user> <password> <bucket url> <out dir>");
+            System.exit(1);
+        }
+        String bucketUrl = args[3].endsWith("/") ? args[3] : args[3] + "/";
+        File outDir = new File(args[4]);
+        if (!outDir.isDirectory() && !outDir.mkdirs()) {
+            throw new IOException("cannot create " + outDir);
+        }
+
+        List<CatalogSnapshotWriter.TagRow> tags = new ArrayList<>();
+        Map<String, CatalogSnapshotWriter.ClubRow> clubs = new LinkedHashMap<>();
+
+        try (Connection db = DriverManager.getConnection(args[0], args[1], args[2])) {
+            readTags(db, tags);
+            readClubs(db, clubs);
+            readClubTags(db, clubs);
+        }
+
+        // Versions only go up, the published snapshot tells us where we are
+        CatalogSnapshot previous = readPublished(bucketUrl);
+        // Starting over: use the clock so the version is above anything published
+        // before, the bucket may still hold diffs from an older sequence
+        long version = previous == null ? System.currentTimeMillis() / 1000 : previous.version() + 1;
+        List<CatalogSnapshotWriter.ClubRow> clubRows = new ArrayList<>(clubs.values());
+
+        if (previous != null) {
+            byte[] diff = CatalogSnapshotDiff.compute(previous, version, tags, clubRows);
+            writeFile(new File(outDir, CatalogSnapshot.diffName(previous.version())), diff);
+            System.out.println("diff " + previous.version() + " -> " + version + ": " + diff.length + " bytes");
+        }
+
+        byte[] snapshot = CatalogSnapshotWriter.toBytes(version, tags, clubRows);
+        writeFile(new File(outDir, CatalogSnapshot.SNAPSHOT_NAME), snapshot);
+        // Phones read this first and skip the download when they already have the version
+        writeFile(new File(outDir, CatalogSnapshot.MANIFEST_NAME),
+                Long.toString(version).getBytes(StandardCharsets.UTF_8));
+        System.out.println("snapshot v" + version + ": " + clubRows.size() + " clubs, "
+                + tags.size() + " tags, " + snapshot.length + " bytes");
+    }
+
+    /**
+     * @return the snapshot currently in the bucket, or null if nothing was published yet
+     * @throws IOException if the bucket can't be read or its files don't match
+     */
+    private static CatalogSnapshot readPublished(String bucketUrl) throws IOException {
+        byte[] manifest = download(bucketUrl + CatalogSnapshot.MANIFEST_NAME);
+        byte[] snapshot = download(bucketUrl + CatalogSnapshot.SNAPSHOT_NAME);
+        if (snapshot == null) {
+            if (manifest != null) {
+                throw new IOException("bucket has " + CatalogSnapshot.MANIFEST_NAME + " but no "
+                        + CatalogSnapshot.SNAPSHOT_NAME);
+            }
+            return null;
+        }
+
+        CatalogSnapshot published = CatalogSnapshot.wrap(snapshot);
+        // A half finished upload, diffing against it would break the sequence
+        if (manifest != null && CatalogSnapshot.parseManifest(manifest) != published.version()) {
+            throw new IOException("bucket manifest says v" + CatalogSnapshot.parseManifest(manifest)
+                    + " but " + CatalogSnapshot.SNAPSHOT_NAME + " is v" + published.version());
+        }
+        return published;
+    }
+
+    /**
+     * @return the object, or null if it doesn't exist
+     */
+    private static byte[] download(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            int code = connection.getResponseCode();
+            // Storage answers 400 or 404 for missing objects
+            if (code == 400 || code == 404) {
+                return null;
+            }
+            if (code != 200) {
+                throw new IOException("HTTP " + code + " for " + url);
+            }
+            try (InputStream in = connection.getInputStream()) {
+                return in.readAllBytes();
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static void readTags(Connection db, List<CatalogSnapshotWriter.TagRow> tags) throws SQLException {
+        try (Statement st = db.createStatement();
+             ResultSet rs = st.executeQuery("SELECT id, name, slug FROM tags ORDER BY name")) {
+            while (rs.next()) {
+                tags.add(new CatalogSnapshotWriter.TagRow(rs.getString(1), rs.getString(2), rs.getString(3)));
+            }
+        }
+    }
+
+    private static void readClubs(Connection db, Map<String, CatalogSnapshotWriter.ClubRow> clubs) throws SQLException {
+        String sql = "SELECT id, slug, name, description, socials, website, address, email, phone"
+                + " FROM clubs ORDER BY name";
+        try (Statement st = db.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            while (rs.next()) {
+                CatalogSnapshotWriter.ClubRow club = new CatalogSnapshotWriter.ClubRow(
+                        rs.getString(1), rs.getString(2), rs.getString(3));
+                club.description = rs.getString(4);
+                club.socials = rs.getString(5);
+                club.website = rs.getString(6);
+                club.address = rs.getString(7);
+                club.email = rs.getString(8);
+                club.phone = rs.getString(9);
+                clubs.put(club.id, club);
+            }
+        }
+    }
+
+    private static void readClubTags(Connection db, Map<String, CatalogSnapshotWriter.ClubRow> clubs) throws SQLException {
+        try (Statement st = db.createStatement();
+             ResultSet rs = st.executeQuery("SELECT club_id, tag_id FROM club_tags")) {
+            while (rs.next()) {
+                CatalogSnapshotWriter.ClubRow club = clubs.get(rs.getString(1));
+                if (club != null) {
+                    club.tagIds.add(rs.getString(2));
+                }
+            }
+        }
+    }
+
+    private static void writeFile(File file, byte[] data) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(data);
+        }
+    }
+}